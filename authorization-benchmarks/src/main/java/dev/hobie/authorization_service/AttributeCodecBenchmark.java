@@ -0,0 +1,79 @@
+package dev.hobie.authorization_service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// encoding and decoding the attributes and access token metadata of an authorization_code
+// authorization, with the JSON that JdbcOAuth2AuthorizationService writes by default and with the
+// Smile codec that replaces it. the setup prints how many bytes each stores per oauth2_authorization row.
+// run with: java -jar target/benchmarks.jar AttributeCodecBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttributeCodecBenchmark {
+
+  @Param({"json", "smile"})
+  private String codec;
+
+  private AttributeCodec attributeCodec;
+
+  private Map<String, Object> attributes;
+
+  private Map<String, Object> metadata;
+
+  private byte[] encodedAttributes;
+
+  private byte[] encodedMetadata;
+
+  @Setup
+  public void setUp() {
+    this.attributeCodec = switch (this.codec) {
+      case "json" -> new JsonAttributeCodec();
+      case "smile" -> new SmileAttributeCodec();
+      default -> throw new IllegalArgumentException("unknown codec " + this.codec);
+    };
+    var authorization = Fixtures.authorizationCodeAuthorization(Fixtures.crm(), UUID.randomUUID().toString());
+    this.attributes = authorization.getAttributes();
+    this.metadata = authorization.getAccessToken().getMetadata();
+    this.encodedAttributes = this.attributeCodec.encode(this.attributes);
+    this.encodedMetadata = this.attributeCodec.encode(this.metadata);
+    System.out.printf(
+        "%n%s: %d bytes of attributes and %d bytes of access token metadata per oauth2_authorization row%n",
+        this.codec, this.encodedAttributes.length, this.encodedMetadata.length);
+  }
+
+  @Benchmark
+  public byte[] encodeAttributes() {
+    return this.attributeCodec.encode(this.attributes);
+  }
+
+  @Benchmark
+  public Map<String, Object> decodeAttributes() {
+    return this.attributeCodec.decode(this.encodedAttributes);
+  }
+
+  @Benchmark
+  public byte[] encodeMetadata() {
+    return this.attributeCodec.encode(this.metadata);
+  }
+
+  @Benchmark
+  public Map<String, Object> decodeMetadata() {
+    return this.attributeCodec.decode(this.encodedMetadata);
+  }
+}
@@ -0,0 +1,154 @@
+package dev.hobie.authorization_service;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+
+// the authorization service's side of an authorization_code flow: saving the authorization with its
+// code at /oauth2/authorize, then finding it by the code and saving it with its tokens at
+// /oauth2/token. the teardown prints how many statements each flow sent to the database. it
+// needs a PostgreSQL database (the one in application.yml, unless -Dbenchmark.datasource.url=...
+// says otherwise) and works in its own authorization_code_flow_benchmark schema.
+// run with: java -jar target/benchmarks.jar AuthorizationCodeFlowBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationCodeFlowBenchmark {
+
+  private static final OAuth2TokenType CODE = new OAuth2TokenType(OAuth2ParameterNames.CODE);
+
+  private SingleConnectionDataSource dataSource;
+
+  private OAuth2AuthorizationService authorizationService;
+
+  private OAuth2Authorization template;
+
+  private final AtomicLong statements = new AtomicLong();
+
+  private final AtomicLong flows = new AtomicLong();
+
+  @Setup
+  public void setUp() {
+    this.dataSource = new SingleConnectionDataSource(
+        System.getProperty("benchmark.datasource.url", "jdbc:postgresql://localhost:5432/mydatabase"),
+        System.getProperty("benchmark.datasource.username", "myuser"),
+        System.getProperty("benchmark.datasource.password", "secret"),
+        true);
+    var jdbc = new CountingJdbcTemplate(this.dataSource, this.statements);
+    jdbc.execute("create schema if not exists authorization_code_flow_benchmark");
+    jdbc.execute("set search_path to authorization_code_flow_benchmark");
+    jdbc.execute("drop table if exists oauth2_authorization");
+    new ResourceDatabasePopulator(new ClassPathResource("sql/schema/oauth2-authorization-schema.sql"))
+        .execute(this.dataSource);
+
+    var client = Fixtures.crm();
+    var clients = new InMemoryRegisteredClientRepository(client);
+    var attributeCodec = new SmileAttributeCodec();
+    var digest = new DigestJdbcOAuth2AuthorizationService(jdbc, clients);
+    digest.setAuthorizationRowMapper(new AuthorizationRowMapper(clients, attributeCodec));
+    digest.setAuthorizationParametersMapper(new AuthorizationParametersMapper(attributeCodec));
+    this.authorizationService = digest;
+    this.template = Fixtures.authorizationCodeAuthorization(client, UUID.randomUUID().toString());
+    this.statements.set(0);
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.out.printf(
+        "%n%.1f statements per authorization_code flow%n",
+        (double) this.statements.get() / this.flows.get());
+    this.dataSource.destroy();
+  }
+
+  @Benchmark
+  public OAuth2Authorization authorizationCodeFlow() {
+    var now = Instant.now();
+    var code = UUID.randomUUID().toString();
+    // at /oauth2/authorize
+    this.authorizationService.save(OAuth2Authorization.withRegisteredClient(Fixtures.crm())
+        .id(UUID.randomUUID().toString())
+        .principalName(this.template.getPrincipalName())
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .authorizedScopes(this.template.getAuthorizedScopes())
+        .attribute(Principal.class.getName(), this.template.getAttribute(Principal.class.getName()))
+        .attribute(
+            OAuth2AuthorizationRequest.class.getName(),
+            this.template.getAttribute(OAuth2AuthorizationRequest.class.getName()))
+        .token(new OAuth2AuthorizationCode(code, now, now.plusSeconds(300)))
+        .build());
+    // at /oauth2/token
+    var authorization = this.authorizationService.findByToken(code, CODE);
+    var redeemed = OAuth2Authorization.from(authorization)
+        .token(
+            authorization.getToken(OAuth2AuthorizationCode.class).getToken(),
+            metadata -> metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .token(
+            new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, UUID.randomUUID().toString(), now,
+                now.plusSeconds(300), authorization.getAuthorizedScopes()),
+            metadata -> metadata.putAll(this.template.getAccessToken().getMetadata()))
+        .refreshToken(new OAuth2RefreshToken(UUID.randomUUID().toString(), now, now.plus(Duration.ofHours(1))))
+        .build();
+    this.authorizationService.save(redeemed);
+    this.flows.incrementAndGet();
+    return redeemed;
+  }
+
+  // every query and update with parameters, whichever JdbcTemplate method it came through, ends up
+  // in one of these
+  private static class CountingJdbcTemplate extends JdbcTemplate {
+
+    private final AtomicLong statements;
+
+    CountingJdbcTemplate(DataSource dataSource, AtomicLong statements) {
+      super(dataSource);
+      this.statements = statements;
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator creator, PreparedStatementSetter setter, ResultSetExtractor<T> extractor) {
+      this.statements.incrementAndGet();
+      return super.query(creator, setter, extractor);
+    }
+
+    @Override
+    protected int update(PreparedStatementCreator creator, PreparedStatementSetter setter) {
+      this.statements.incrementAndGet();
+      return super.update(creator, setter);
+    }
+  }
+}
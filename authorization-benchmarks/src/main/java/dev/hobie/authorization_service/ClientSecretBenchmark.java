@@ -0,0 +1,56 @@
+package dev.hobie.authorization_service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// checking the crm client's secret against its stored {bcrypt} hash, as every client_credentials
+// request does, with the PasswordEncoder and with a warm CachingClientSecretEncoder in front of it.
+// run with: java -jar target/benchmarks.jar ClientSecretBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientSecretBenchmark {
+
+  @Param({"password-encoder", "cached"})
+  private String encoder;
+
+  private PasswordEncoder passwordEncoder;
+
+  private String encodedSecret;
+
+  @Setup
+  public void setUp() {
+    var passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    this.passwordEncoder = switch (this.encoder) {
+      case "password-encoder" -> passwordEncoder;
+      case "cached" -> new CachingClientSecretEncoder(
+          passwordEncoder, Duration.ofMinutes(1), 1000, new SimpleMeterRegistry());
+      default -> throw new IllegalArgumentException("unknown encoder " + this.encoder);
+    };
+    this.encodedSecret = Fixtures.crm().getClientSecret();
+    if (!this.passwordEncoder.matches("crm", this.encodedSecret))
+      throw new IllegalStateException("the crm client's secret should be crm");
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return this.passwordEncoder.matches("crm", this.encodedSecret);
+  }
+}
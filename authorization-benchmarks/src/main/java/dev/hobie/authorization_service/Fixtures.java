@@ -0,0 +1,150 @@
+package dev.hobie.authorization_service;
+
+import java.lang.reflect.Proxy;
+import java.security.Principal;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientCredentialsAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.context.AuthorizationServerContext;
+import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
+import org.springframework.security.oauth2.server.authorization.token.DefaultOAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenContext;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+// the same crm client that ClientsConfiguration installs, and the token requests it makes
+public abstract class Fixtures {
+
+  public static final String ISSUER = "http://localhost:8080";
+
+  public static RegisteredClient crm() {
+    return crmBuilder().build();
+  }
+
+  public static RegisteredClient.Builder crmBuilder() {
+    return RegisteredClient.withId("4b6ffb0c-1f3c-4d2b-9a53-0c2d3f6a1f10")
+        .clientId("crm")
+        .clientSecret("{bcrypt}$2a$10$m7dGi0viwVH63EjwZc6UdeUQxPuiVEEdFbZFI9nMxHAASTOIDlaVO")
+        .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+        .authorizationGrantTypes(
+            grantTypes ->
+                grantTypes.addAll(
+                    Set.of(
+                        AuthorizationGrantType.CLIENT_CREDENTIALS,
+                        AuthorizationGrantType.AUTHORIZATION_CODE,
+                        AuthorizationGrantType.REFRESH_TOKEN)))
+        .redirectUri("http://127.0.0.1:8082/login/oauth2/code/spring")
+        .scopes(scopes -> scopes.addAll(Set.of("user.read", "user.write")));
+  }
+
+  public static AuthorizationServerContext authorizationServerContext() {
+    var settings = AuthorizationServerSettings.builder().issuer(ISSUER).build();
+    return new AuthorizationServerContext() {
+
+      @Override
+      public String getIssuer() {
+        return ISSUER;
+      }
+
+      @Override
+      public AuthorizationServerSettings getAuthorizationServerSettings() {
+        return settings;
+      }
+    };
+  }
+
+  public static OAuth2TokenContext clientCredentialsAccessTokenContext(RegisteredClient client) {
+    var principal =
+        new OAuth2ClientAuthenticationToken(
+            client, ClientAuthenticationMethod.CLIENT_SECRET_BASIC, null);
+    return DefaultOAuth2TokenContext.builder()
+        .registeredClient(client)
+        .principal(principal)
+        .authorizationServerContext(authorizationServerContext())
+        .authorizedScopes(client.getScopes())
+        .tokenType(OAuth2TokenType.ACCESS_TOKEN)
+        .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+        .authorizationGrant(
+            new OAuth2ClientCredentialsAuthenticationToken(principal, client.getScopes(), null))
+        .build();
+  }
+
+  // an authorization_code authorization as JdbcOAuth2AuthorizationService stores it once the code has
+  // been redeemed, with the same attributes as the sample in JsonConfiguration
+  public static OAuth2Authorization authorizationCodeAuthorization(
+      RegisteredClient client, String accessTokenValue) {
+    var now = Instant.now();
+    var user = (User) User.withUsername("jlong").password("pw").roles("USER").build();
+    user.eraseCredentials();
+    var principal = UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+    principal.setDetails(new WebAuthenticationDetails("0:0:0:0:0:0:0:1", "745F400BA9E8317369ECFD9B9E826695"));
+    var scopes = Set.of("user.read", "openid");
+    var request = OAuth2AuthorizationRequest.authorizationCode()
+        .authorizationUri(ISSUER + "/oauth2/authorize")
+        .clientId(client.getClientId())
+        .redirectUri(client.getRedirectUris().iterator().next())
+        .scopes(scopes)
+        .state("QjdbcbnM2uoxnwksbT1IooOOWxNbkdMVV0LDsptQuH4=")
+        .additionalParameters(Map.of("nonce", "ryv3qPgr5IwFA6LYmLf1QkQY4fRtaZmg_ePB2rSJrqQ", "continue", ""))
+        .build();
+    // the claims of the signed access token, which JwtGenerator keeps in the token's metadata
+    var claims = new HashMap<String, Object>();
+    claims.put("sub", user.getUsername());
+    claims.put("aud", new ArrayList<>(List.of(client.getClientId())));
+    claims.put("nbf", now);
+    claims.put("scope", new ArrayList<>(scopes));
+    claims.put("iss", ISSUER);
+    claims.put("exp", now.plusSeconds(300));
+    claims.put("iat", now);
+    claims.put("jti", "0b6a5c9e-3f2d-4e8a-b1c7-5d9e8f7a6b4c");
+    return OAuth2Authorization.withRegisteredClient(client)
+        .id("1d8d4a0e-6f4b-4c1e-9a49-1f0b7c7e2d55")
+        .principalName(user.getUsername())
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .authorizedScopes(scopes)
+        .attribute(Principal.class.getName(), principal)
+        .attribute(OAuth2AuthorizationRequest.class.getName(), request)
+        .token(
+            new OAuth2AuthorizationCode("sWcPVqhCc-Xk4KHnk3yv8PYyI6Q6JwZq", now, now.plusSeconds(300)),
+            metadata -> metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .token(
+            new OAuth2AccessToken(
+                OAuth2AccessToken.TokenType.BEARER, accessTokenValue, now, now.plusSeconds(300), scopes),
+            metadata -> metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, claims))
+        .refreshToken(
+            new OAuth2RefreshToken("kSx5Qy0yj4GhO0p2DZBrwJ6d1cZ1y9m3", now, now.plus(Duration.ofHours(1))))
+        .build();
+  }
+
+  // a single-row ResultSet that answers the getters our row mappers use from a map of column values
+  public static ResultSet resultSet(Map<String, ?> row) {
+    return (ResultSet)
+        Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "getString" -> row.get(args[0]) == null ? null : row.get(args[0]).toString();
+                  case "getBytes", "getTimestamp", "getObject" -> row.get(args[0]);
+                  case "wasNull" -> false;
+                  default -> throw new UnsupportedOperationException(method.getName());
+                });
+  }
+}
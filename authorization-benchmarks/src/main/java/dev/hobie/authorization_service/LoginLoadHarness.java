@@ -0,0 +1,165 @@
+package dev.hobie.authorization_service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+// logs users in against a running authorization-service, from many threads at once, and prints how
+// many logins a second it managed. start the service with the session store to measure, e.g.
+// --sessions.store=redis, and run the harness once per store. a login is the browser's side of the
+// authorization_code flow: /oauth2/authorize, which sends it to the login page, the login page, the
+// form post, /oauth2/authorize again for the code, and then -Dharness.requests-after-login more
+// requests in the same session. every one of them reads the session, and most write it. the password
+// check costs the same whatever the store, so the harness also prints requests a second; logins
+// answered with 503 because password hashing was saturated are counted as rejected.
+// run with: java -cp target/benchmarks.jar dev.hobie.authorization_service.LoginLoadHarness
+public class LoginLoadHarness {
+
+  private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]+)\"");
+
+  private static final Pattern SESSION = Pattern.compile("SESSION=([^;]+)");
+
+  private final String url = System.getProperty("harness.url", "http://localhost:8080");
+
+  private final String authorize = this.url + "/oauth2/authorize?response_type=code&client_id=crm"
+      + "&scope=user.read&state=harness&redirect_uri=http://127.0.0.1:8082/login/oauth2/code/spring";
+
+  private final String form = "username=" + System.getProperty("harness.username", "jlong")
+      + "&password=" + System.getProperty("harness.password", "password") + "&_csrf=";
+
+  private final int requestsAfterLogin = Integer.getInteger("harness.requests-after-login", 3);
+
+  private final HttpClient http = HttpClient.newBuilder()
+      .followRedirects(HttpClient.Redirect.NEVER)
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+
+  private final AtomicLong logins = new AtomicLong();
+
+  private final AtomicLong requests = new AtomicLong();
+
+  private final AtomicLong rejected = new AtomicLong();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  public static void main(String[] args) throws Exception {
+    var threads = Integer.getInteger("harness.threads", 16);
+    var warmup = Duration.parse(System.getProperty("harness.warmup", "PT10S"));
+    var duration = Duration.parse(System.getProperty("harness.duration", "PT30S"));
+    var harness = new LoginLoadHarness();
+    System.out.printf("warming up for %s%n", warmup);
+    harness.run(threads, warmup);
+    var result = harness.run(threads, duration);
+    System.out.printf(
+        "%d threads for %s: %.1f logins/s, %.1f requests/s, %d rejected, %d failed, login p50 %d ms, p99 %d ms%n",
+        threads, duration, result.logins() / (double) duration.toSeconds(),
+        result.requests() / (double) duration.toSeconds(), result.rejected(), result.failed(),
+        result.p50(), result.p99());
+  }
+
+  private Result run(int threads, Duration duration) throws Exception {
+    this.logins.set(0);
+    this.requests.set(0);
+    this.rejected.set(0);
+    this.failed.set(0);
+    var deadline = System.nanoTime() + duration.toNanos();
+    var futures = new ArrayList<Future<long[]>>();
+    try (var executor = Executors.newFixedThreadPool(threads)) {
+      for (var i = 0; i < threads; i++)
+        futures.add(executor.submit(() -> {
+          var latencies = new long[1024];
+          var count = 0;
+          while (System.nanoTime() < deadline) {
+            var start = System.nanoTime();
+            if (!login()) continue;
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = (System.nanoTime() - start) / 1_000_000;
+          }
+          return Arrays.copyOf(latencies, count);
+        }));
+    }
+    var latencies = new long[0];
+    for (var future : futures) {
+      var next = future.get();
+      var merged = Arrays.copyOf(latencies, latencies.length + next.length);
+      System.arraycopy(next, 0, merged, latencies.length, next.length);
+      latencies = merged;
+    }
+    Arrays.sort(latencies);
+    return new Result(
+        this.logins.get(), this.requests.get(), this.rejected.get(), this.failed.get(),
+        percentile(latencies, 0.5), percentile(latencies, 0.99));
+  }
+
+  private boolean login() {
+    try {
+      var session = new String[1];
+      send(get(this.authorize, session), session);
+      var page = send(get(this.url + "/login", session), session);
+      var csrf = CSRF.matcher(page.body());
+      if (!csrf.find()) return failed();
+      var posted = send(
+          request(this.url + "/login", session)
+              .header("Content-Type", "application/x-www-form-urlencoded")
+              .POST(HttpRequest.BodyPublishers.ofString(
+                  this.form + URLEncoder.encode(csrf.group(1), StandardCharsets.UTF_8)))
+              .build(),
+          session);
+      if (posted.statusCode() == 503) {
+        this.rejected.incrementAndGet();
+        return false;
+      }
+      for (var i = 0; i <= this.requestsAfterLogin; i++) {
+        var authorized = send(get(this.authorize, session), session);
+        if (!authorized.headers().firstValue("Location").orElse("").contains("code=")) return failed();
+      }
+      this.logins.incrementAndGet();
+      return true;
+    } catch (Exception e) {
+      return failed();
+    }
+  }
+
+  private boolean failed() {
+    this.failed.incrementAndGet();
+    return false;
+  }
+
+  private HttpRequest.Builder request(String uri, String[] session) {
+    var builder = HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(30));
+    if (session[0] != null) builder.header("Cookie", "SESSION=" + session[0]);
+    return builder;
+  }
+
+  private HttpRequest get(String uri, String[] session) {
+    return request(uri, session).GET().build();
+  }
+
+  // follows the session cookie, which changes when the user logs in
+  private HttpResponse<String> send(HttpRequest request, String[] session) throws Exception {
+    var response = this.http.send(request, HttpResponse.BodyHandlers.ofString());
+    this.requests.incrementAndGet();
+    for (var cookie : response.headers().allValues("Set-Cookie")) {
+      var matcher = SESSION.matcher(cookie);
+      if (matcher.lookingAt()) session[0] = matcher.group(1);
+    }
+    return response;
+  }
+
+  private static long percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) return 0;
+    return sorted[(int) Math.min(sorted.length - 1, Math.floor(sorted.length * percentile))];
+  }
+
+  private record Result(long logins, long requests, long rejected, long failed, long p50, long p99) {}
+}
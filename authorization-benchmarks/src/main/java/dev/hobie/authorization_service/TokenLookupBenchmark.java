@@ -0,0 +1,101 @@
+package dev.hobie.authorization_service;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+
+// finding an authorization by its access token, by comparing the text column and by comparing the
+// indexed digest column, as oauth2_authorization grows. it needs a PostgreSQL database (the one in
+// application.yml, unless -Dbenchmark.datasource.url=... says otherwise) and works in its own
+// token_lookup_benchmark schema.
+// run with: java -jar target/benchmarks.jar TokenLookupBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenLookupBenchmark {
+
+  @Param({"10000", "100000", "1000000"})
+  private int rows;
+
+  @Param({"value", "digest"})
+  private String lookup;
+
+  private SingleConnectionDataSource dataSource;
+
+  private JdbcOAuth2AuthorizationService authorizationService;
+
+  private String accessToken;
+
+  @Setup
+  public void setUp() throws SQLException {
+    this.dataSource = new SingleConnectionDataSource(
+        System.getProperty("benchmark.datasource.url", "jdbc:postgresql://localhost:5432/mydatabase"),
+        System.getProperty("benchmark.datasource.username", "myuser"),
+        System.getProperty("benchmark.datasource.password", "secret"),
+        true);
+    var jdbc = new JdbcTemplate(this.dataSource);
+    jdbc.execute("create schema if not exists token_lookup_benchmark");
+    jdbc.execute("set search_path to token_lookup_benchmark");
+    jdbc.execute("drop table if exists oauth2_authorization");
+    new ResourceDatabasePopulator(new ClassPathResource("sql/schema/oauth2-authorization-schema.sql"))
+        .execute(this.dataSource);
+
+    var client = Fixtures.crm();
+    jdbc.update("""
+        insert into oauth2_authorization (id, registered_client_id, principal_name, authorization_grant_type,
+                                          access_token_value, refresh_token_value)
+        select gen_random_uuid()::text, ?, 'jlong', 'authorization_code',
+               md5(random()::text) || md5(random()::text), md5(random()::text)
+        from generate_series(1, ?)
+        """, client.getId(), this.rows - 1);
+
+    var clients = new InMemoryRegisteredClientRepository(client);
+    this.authorizationService = switch (this.lookup) {
+      case "value" -> new JdbcOAuth2AuthorizationService(jdbc, clients);
+      case "digest" -> new DigestJdbcOAuth2AuthorizationService(jdbc, clients);
+      default -> throw new IllegalArgumentException("unknown lookup " + this.lookup);
+    };
+    var attributeCodec = new SmileAttributeCodec();
+    this.authorizationService.setAuthorizationRowMapper(new AuthorizationRowMapper(clients, attributeCodec));
+    this.authorizationService.setAuthorizationParametersMapper(new AuthorizationParametersMapper(attributeCodec));
+    this.accessToken = UUID.randomUUID().toString();
+    this.authorizationService.save(
+        OAuth2Authorization.from(Fixtures.authorizationCodeAuthorization(client, this.accessToken))
+            .id(UUID.randomUUID().toString())
+            .build());
+    jdbc.execute("analyze oauth2_authorization");
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.dataSource.destroy();
+  }
+
+  @Benchmark
+  public OAuth2Authorization findByAccessToken() {
+    return this.authorizationService.findByToken(this.accessToken, OAuth2TokenType.ACCESS_TOKEN);
+  }
+}
@@ -0,0 +1,62 @@
+package dev.hobie.authorization_service.keys;
+
+import dev.hobie.authorization_service.Fixtures;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.authorization.token.JwtGenerator;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenContext;
+
+// compares the stock NimbusJwtEncoder with the KeyRingJwtEncoder for a client_credentials token.
+// run with: java -jar target/benchmarks.jar JwtEncoderBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtEncoderBenchmark {
+
+  @Param({"nimbus", "keyRing"})
+  private String encoder;
+
+  private JwtGenerator generator;
+
+  private OAuth2TokenContext context;
+
+  @Setup
+  public void setUp() {
+    var repository = new InMemorySigningKeyPairRepository();
+    repository.save(new Keys().generateKeyPair("bootiful-key", Instant.now()));
+    var keyRingCache = new KeyRingCache(repository, new InMemoryKeyRingGeneration(), event -> {});
+    var jwkSource = new KeyRingJWKSource(keyRingCache, EnumSet.allOf(KeyAlgorithm.class));
+    JwtEncoder jwtEncoder =
+        switch (this.encoder) {
+          case "nimbus" -> new NimbusJwtEncoder(jwkSource);
+          case "keyRing" -> new KeyRingJwtEncoder(keyRingCache);
+          default -> throw new IllegalArgumentException("unknown encoder " + this.encoder);
+        };
+    this.generator = new JwtGenerator(jwtEncoder);
+    this.generator.setJwtCustomizer(jwkSource);
+    this.context = Fixtures.clientCredentialsAccessTokenContext(Fixtures.crm());
+  }
+
+  @Benchmark
+  public Jwt clientCredentialsAccessToken() {
+    return this.generator.generate(this.context);
+  }
+}
@@ -0,0 +1,88 @@
+package dev.hobie.authorization_service.keys;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.crypto.encrypt.Encryptors;
+
+// the time it takes to turn a stored rsa_key_pairs row back into keys, for the legacy encrypted PEM
+// text and the binary format. the bytes per row are printed during setup.
+// run with: java -jar target/benchmarks.jar KeyStorageBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyStorageBenchmark {
+
+  @Param({"legacy", "binary"})
+  private String format;
+
+  @Param({"RS256", "ES256"})
+  private KeyAlgorithm algorithm;
+
+  private PrivateKeyConverter privateKeyConverter;
+
+  private PublicKeyConverter publicKeyConverter;
+
+  private byte[] privateKey;
+
+  private byte[] publicKey;
+
+  @Setup
+  public void setUp() throws IOException {
+    var password = "password";
+    var salt = "626F6F746966756C";
+    var textEncryptor = Encryptors.text(password, salt);
+    var bytesEncryptor = Encryptors.stronger(password, salt);
+    this.privateKeyConverter = new PrivateKeyConverter(textEncryptor, bytesEncryptor);
+    this.publicKeyConverter = new PublicKeyConverter(textEncryptor, bytesEncryptor);
+
+    var now = Instant.now();
+    var keyPair = new Keys().generateKeyPair("bootiful-key", this.algorithm, now, now);
+    this.privateKey = store(this.privateKeyConverter, keyPair.privateKey());
+    this.publicKey = store(this.publicKeyConverter, keyPair.publicKey());
+    System.out.printf(
+        "%n%s %s: %d bytes of private key, %d bytes of public key per row%n",
+        this.format,
+        this.algorithm,
+        this.privateKey.length,
+        this.publicKey.length);
+  }
+
+  private <K extends Key> byte[] store(KeyConverter<K> converter, K key)
+      throws IOException {
+    var out = new ByteArrayOutputStream();
+    if ("legacy".equals(this.format)) converter.serializeLegacy(key, out);
+    else converter.serialize(key, out);
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public void loadKeyPair(Blackhole blackhole) {
+    PrivateKey privateKey =
+        this.privateKeyConverter.deserialize(new ByteArrayInputStream(this.privateKey), this.algorithm);
+    PublicKey publicKey =
+        this.publicKeyConverter.deserialize(new ByteArrayInputStream(this.publicKey), this.algorithm);
+    blackhole.consume(privateKey);
+    blackhole.consume(publicKey);
+  }
+}
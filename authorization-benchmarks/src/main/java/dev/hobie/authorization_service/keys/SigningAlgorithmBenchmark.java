@@ -0,0 +1,73 @@
+package dev.hobie.authorization_service.keys;
+
+import dev.hobie.authorization_service.Fixtures;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+import org.springframework.security.oauth2.server.authorization.token.JwtGenerator;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenContext;
+
+// client_credentials access token issuance for each signing algorithm. the token and public JWK
+// sizes are printed during setup.
+// run with: java -jar target/benchmarks.jar SigningAlgorithmBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningAlgorithmBenchmark {
+
+  @Param({"RS256", "ES256", "EdDSA"})
+  private KeyAlgorithm algorithm;
+
+  private JwtGenerator generator;
+
+  private OAuth2TokenContext context;
+
+  @Setup
+  public void setUp() {
+    var repository = new InMemorySigningKeyPairRepository();
+    var now = Instant.now();
+    repository.save(new Keys().generateKeyPair("bootiful-key", this.algorithm, now, now));
+    var keyRingCache = new KeyRingCache(repository, new InMemoryKeyRingGeneration(), event -> {});
+    var jwkSource = new KeyRingJWKSource(keyRingCache, EnumSet.allOf(KeyAlgorithm.class));
+    this.generator = new JwtGenerator(new KeyRingJwtEncoder(keyRingCache));
+    this.generator.setJwtCustomizer(jwkSource);
+    var client =
+        Fixtures.crmBuilder()
+            .tokenSettings(
+                TokenSettings.builder()
+                    .setting(KeyAlgorithm.ACCESS_TOKEN_SIGNATURE_ALGORITHM, this.algorithm.name())
+                    .build())
+            .build();
+    this.context = Fixtures.clientCredentialsAccessTokenContext(client);
+
+    var token = this.generator.generate(this.context).getTokenValue();
+    var jwks = keyRingCache.get().jwkSet().toPublicJWKSet().toString();
+    System.out.printf(
+        "%n%s: %d bytes per access token, %d bytes of public JWK set%n",
+        this.algorithm,
+        token.getBytes(StandardCharsets.US_ASCII).length,
+        jwks.getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Benchmark
+  public Jwt clientCredentialsAccessToken() {
+    return this.generator.generate(this.context);
+  }
+}
@@ -0,0 +1,187 @@
+package dev.hobie.authorization_service.keys;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import dev.hobie.authorization_service.AuthorizationParametersMapper;
+import dev.hobie.authorization_service.AuthorizationRowMapper;
+import dev.hobie.authorization_service.Fixtures;
+import dev.hobie.authorization_service.SmileAttributeCodec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.security.crypto.encrypt.Encryptors;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenGenerator;
+
+// one benchmark per stage of a /oauth2/token call, so that a regression shows up in the stage that
+// caused it: the token generator that KeyConfiguration installs, the stock NimbusJwtEncoder on its
+// own, selecting a key from the KeyRingJWKSource, decoding a rsa_key_pairs row, and turning an
+// OAuth2Authorization into and back out of its oauth2_authorization row.
+// run with: java -jar target/benchmarks.jar TokenPipelineBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenPipelineBenchmark {
+
+  private static final List<String> AUTHORIZATION_COLUMNS = List.of(
+      "id", "registered_client_id", "principal_name", "authorization_grant_type", "authorized_scopes",
+      "attributes", "state", "authorization_code_value", "authorization_code_issued_at",
+      "authorization_code_expires_at", "authorization_code_metadata", "access_token_value",
+      "access_token_issued_at", "access_token_expires_at", "access_token_metadata", "access_token_type",
+      "access_token_scopes", "oidc_id_token_value", "oidc_id_token_issued_at", "oidc_id_token_expires_at",
+      "oidc_id_token_metadata", "refresh_token_value", "refresh_token_issued_at",
+      "refresh_token_expires_at", "refresh_token_metadata", "user_code_value", "user_code_issued_at",
+      "user_code_expires_at", "user_code_metadata", "device_code_value", "device_code_issued_at",
+      "device_code_expires_at", "device_code_metadata");
+
+  private OAuth2TokenGenerator<OAuth2Token> tokenGenerator;
+
+  private OAuth2TokenContext tokenContext;
+
+  private NimbusJwtEncoder nimbusJwtEncoder;
+
+  private JwtEncoderParameters jwtEncoderParameters;
+
+  private KeyRingJWKSource jwkSource;
+
+  private JWKSelector jwkSelector;
+
+  private SigningKeyPairRowMapper keyPairRowMapper;
+
+  private ResultSet keyPairRow;
+
+  private AuthorizationParametersMapper authorizationParametersMapper;
+
+  private AuthorizationRowMapper authorizationRowMapper;
+
+  private OAuth2Authorization authorization;
+
+  private ResultSet authorizationRow;
+
+  @Setup
+  public void setUp() throws IOException {
+    var keyPair = new Keys().generateKeyPair("bootiful-key", Instant.now());
+    var repository = new InMemorySigningKeyPairRepository();
+    repository.save(keyPair);
+    var keyRingCache = new KeyRingCache(repository, new InMemoryKeyRingGeneration(), event -> {});
+    var client = Fixtures.crm();
+
+    var configuration = new KeyConfiguration();
+    this.jwkSource = new KeyRingJWKSource(keyRingCache, EnumSet.allOf(KeyAlgorithm.class));
+    this.tokenGenerator = configuration.delegatingOAuth2TokenGenerator(
+        configuration.jwtEncoder(keyRingCache), this.jwkSource);
+    this.tokenContext = Fixtures.clientCredentialsAccessTokenContext(client);
+
+    this.nimbusJwtEncoder = new NimbusJwtEncoder(this.jwkSource);
+    var now = Instant.now();
+    var claims = JwtClaimsSet.builder()
+        .issuer(Fixtures.ISSUER)
+        .subject(client.getClientId())
+        .audience(List.of(client.getClientId()))
+        .issuedAt(now)
+        .notBefore(now)
+        .expiresAt(now.plusSeconds(300))
+        .claim("scope", client.getScopes())
+        .build();
+    var header = JwsHeader.with(SignatureAlgorithm.RS256).keyId(keyPair.id()).build();
+    this.jwtEncoderParameters = JwtEncoderParameters.from(header, claims);
+    this.jwkSelector = new JWKSelector(
+        JWKMatcher.forJWSHeader(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyPair.id()).build()));
+
+    var textEncryptor = Encryptors.text("password", "626F6F746966756C");
+    var bytesEncryptor = Encryptors.stronger("password", "626F6F746966756C");
+    var privateKeyConverter = new PrivateKeyConverter(textEncryptor, bytesEncryptor);
+    var publicKeyConverter = new PublicKeyConverter(textEncryptor, bytesEncryptor);
+    this.keyPairRowMapper = new SigningKeyPairRowMapper(privateKeyConverter, publicKeyConverter);
+    var privateKey = new ByteArrayOutputStream();
+    var publicKey = new ByteArrayOutputStream();
+    privateKeyConverter.serialize(keyPair.privateKey(), privateKey);
+    publicKeyConverter.serialize(keyPair.publicKey(), publicKey);
+    var keyPairColumns = new HashMap<String, Object>();
+    keyPairColumns.put("id", keyPair.id());
+    keyPairColumns.put("algorithm", keyPair.algorithm().name());
+    keyPairColumns.put("private_key", privateKey.toByteArray());
+    keyPairColumns.put("public_key", publicKey.toByteArray());
+    keyPairColumns.put("created", Timestamp.from(keyPair.created()));
+    keyPairColumns.put("activates", Timestamp.from(keyPair.activates()));
+    this.keyPairRow = Fixtures.resultSet(keyPairColumns);
+
+    var clients = new InMemoryRegisteredClientRepository(client);
+    var attributeCodec = new SmileAttributeCodec();
+    this.authorizationParametersMapper = new AuthorizationParametersMapper(attributeCodec);
+    this.authorizationRowMapper = new AuthorizationRowMapper(clients, attributeCodec);
+    var accessToken = this.tokenGenerator.generate(this.tokenContext);
+    this.authorization = Fixtures.authorizationCodeAuthorization(client, accessToken.getTokenValue());
+    var parameters = this.authorizationParametersMapper.apply(this.authorization);
+    var authorizationColumns = new HashMap<String, Object>();
+    for (var i = 0; i < AUTHORIZATION_COLUMNS.size(); i++)
+      authorizationColumns.put(AUTHORIZATION_COLUMNS.get(i), parameters.get(i).getValue());
+    this.authorizationRow = Fixtures.resultSet(authorizationColumns);
+    System.out.printf(
+        "%n%d bytes of attributes per oauth2_authorization row%n",
+        ((byte[]) authorizationColumns.get("attributes")).length);
+  }
+
+  @Benchmark
+  public OAuth2Token tokenGenerator() {
+    return this.tokenGenerator.generate(this.tokenContext);
+  }
+
+  @Benchmark
+  public Jwt nimbusJwtEncoder() {
+    return this.nimbusJwtEncoder.encode(this.jwtEncoderParameters);
+  }
+
+  @Benchmark
+  public List<JWK> jwkSelection() {
+    return this.jwkSource.get(this.jwkSelector, null);
+  }
+
+  @Benchmark
+  public SigningKeyPair keyPairRowMapping() throws SQLException {
+    return this.keyPairRowMapper.mapRow(this.keyPairRow, 0);
+  }
+
+  @Benchmark
+  public List<SqlParameterValue> authorizationSerialization() {
+    return this.authorizationParametersMapper.apply(this.authorization);
+  }
+
+  @Benchmark
+  public OAuth2Authorization authorizationDeserialization() throws SQLException {
+    return this.authorizationRowMapper.mapRow(this.authorizationRow, 0);
+  }
+}
@@ -165,6 +165,8 @@ public class AotHints implements RuntimeHintsRegistrar {
 
     var all = classes.stream().map(Class::getName).collect(Collectors.toCollection(HashSet::new));
     stringClasses.forEach((root, setOfClasses) -> setOfClasses.forEach(cn -> all.add(root + cn)));
+    // the smile codec resolves its type ids back to these by name
+    all.addAll(SmileAttributeCodec.TYPE_IDS);
 
     var memberCategories = MemberCategory.values();
 
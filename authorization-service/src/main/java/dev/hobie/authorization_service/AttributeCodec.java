@@ -0,0 +1,12 @@
+package dev.hobie.authorization_service;
+
+import java.util.Map;
+
+// turns the attributes of an authorization, and the metadata of each of its tokens, into the bytes
+// stored in oauth2_authorization, and back
+public interface AttributeCodec {
+
+  byte[] encode(Map<String, Object> attributes);
+
+  Map<String, Object> decode(byte[] encoded);
+}
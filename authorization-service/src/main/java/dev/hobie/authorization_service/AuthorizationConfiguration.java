@@ -1,24 +1,106 @@
 package dev.hobie.authorization_service;
 
+import dev.hobie.authorization_service.keys.KeyRingCache;
+import dev.hobie.authorization_service.keys.KeyRingJwtDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationConsentService;
-import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationConsentService;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
 
 @Configuration
 public class AuthorizationConfiguration {
 
   @Bean
-  JdbcOAuth2AuthorizationConsentService jdbcOAuth2AuthorizationConsentService(
-      JdbcOperations jdbcOperations, RegisteredClientRepository repository) {
-    return new JdbcOAuth2AuthorizationConsentService(jdbcOperations, repository);
+  OAuth2AuthorizationConsentService jdbcOAuth2AuthorizationConsentService(
+      JdbcOperations jdbcOperations,
+      RegisteredClientRepository repository,
+      MeterRegistry meterRegistry,
+      @Value("${authorization.consent-cache.time-to-live}") Duration timeToLive,
+      @Value("${authorization.consent-cache.negative-time-to-live}") Duration negativeTimeToLive,
+      @Value("${authorization.consent-cache.maximum-size}") long maximumSize) {
+    return new CachingOAuth2AuthorizationConsentService(
+        new JdbcOAuth2AuthorizationConsentService(jdbcOperations, repository),
+        timeToLive,
+        negativeTimeToLive,
+        maximumSize,
+        meterRegistry);
   }
 
   @Bean
-  JdbcOAuth2AuthorizationService jdbcOAuth2AuthorizationService(
-      JdbcOperations jdbcOperations, RegisteredClientRepository rcr) {
-    return new JdbcOAuth2AuthorizationService(jdbcOperations, rcr);
+  AttributeCodec attributeCodec(@Value("${authorization.attributes.codec}") String codec) {
+    return switch (codec) {
+      case "smile" -> new SmileAttributeCodec();
+      case "json" -> new JsonAttributeCodec();
+      default -> throw new IllegalArgumentException("unknown attribute codec " + codec);
+    };
+  }
+
+  @Bean
+  ClientCredentialsTokenLog clientCredentialsTokenLog(
+      JdbcOperations jdbcOperations,
+      MeterRegistry meterRegistry,
+      @Value("${authorization.client-credentials-log.capacity}") int capacity,
+      @Value("${authorization.client-credentials-log.batch-size}") int batchSize,
+      @Value("${authorization.client-credentials-log.max-attempts}") int maxAttempts,
+      @Value("${authorization.client-credentials-log.flush-interval}") Duration flushInterval) {
+    return new ClientCredentialsTokenLog(
+        jdbcOperations, capacity, batchSize, maxAttempts, flushInterval, meterRegistry);
+  }
+
+  @Bean
+  OAuth2AuthorizationService jdbcOAuth2AuthorizationService(
+      JdbcOperations jdbcOperations,
+      RegisteredClientRepository rcr,
+      AttributeCodec attributeCodec,
+      ClientCredentialsTokenLog clientCredentialsTokenLog,
+      KeyRingCache keyRingCache,
+      AuthorizationStorageMigration storageMigration,
+      MeterRegistry meterRegistry,
+      @Value("${authorization.cache.time-to-live}") Duration timeToLive,
+      @Value("${authorization.cache.maximum-size}") long maximumSize,
+      @Value("${authorization.write-behind.enabled}") boolean writeBehind,
+      @Value("${authorization.write-behind.capacity}") int writeBehindCapacity,
+      @Value("${authorization.write-behind.batch-size}") int writeBehindBatchSize,
+      @Value("${authorization.write-behind.flush-interval}") Duration writeBehindFlushInterval) {
+    var parametersMapper = new AuthorizationParametersMapper(attributeCodec, storageMigration.textColumns());
+    var jdbc = new DigestJdbcOAuth2AuthorizationService(jdbcOperations, rcr);
+    jdbc.setAuthorizationRowMapper(new AuthorizationRowMapper(rcr, attributeCodec));
+    jdbc.setAuthorizationParametersMapper(parametersMapper);
+    OAuth2AuthorizationService written = writeBehind
+        ? new WriteBehindOAuth2AuthorizationService(
+            jdbc,
+            jdbcOperations,
+            parametersMapper,
+            writeBehindCapacity,
+            writeBehindBatchSize,
+            writeBehindFlushInterval,
+            meterRegistry)
+        : jdbc;
+    var stateless =
+        new StatelessClientCredentialsAuthorizationService(
+            written, rcr, jdbcOperations, clientCredentialsTokenLog, new KeyRingJwtDecoder(keyRingCache));
+    return new CachingOAuth2AuthorizationService(stateless, timeToLive, maximumSize, meterRegistry);
+  }
+
+  @Bean
+  ApplicationRunner authorizationDigestBackfillRunner(AuthorizationDigestBackfill backfill) {
+    return args -> backfill.backfill();
+  }
+
+  // the backfill can take a while on a big table, so it doesn't hold up startup
+  @Bean
+  ApplicationRunner authorizationStorageMigrationRunner(
+      AuthorizationStorageMigration migration,
+      @Value("${authorization.attributes.backfill.enabled}") boolean backfill) {
+    return args -> {
+      if (backfill) Thread.ofVirtual().name("authorization-storage-migration").start(migration::migrate);
+    };
   }
 }
@@ -0,0 +1,109 @@
+package dev.hobie.authorization_service;
+
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+// fills in the token digests and expires_at of the rows written before the trigger in
+// oauth2-authorization-schema.sql existed. DigestJdbcOAuth2AuthorizationService can't find their
+// tokens until then, so this runs at startup, before the application reports itself ready. it
+// updates the rows in batches with a pause in between, like the reaper, and while one replica does
+// it the others wait for the advisory lock.
+@Slf4j
+@Component
+class AuthorizationDigestBackfill {
+
+  // an arbitrary key that all the replicas agree on
+  private static final long ADVISORY_LOCK_KEY = 0x6f61757468646967L;
+
+  private static final String MISSING = """
+      ((authorization_code_value is not null and authorization_code_digest is null)
+        or (access_token_value is not null and access_token_digest is null)
+        or (refresh_token_value is not null and refresh_token_digest is null)
+        or (state is not null and state_digest is null)
+        or (oidc_id_token_value is not null and oidc_id_token_digest is null)
+        or (user_code_value is not null and user_code_digest is null)
+        or (device_code_value is not null and device_code_digest is null)
+        or (expires_at is null and coalesce(authorization_code_expires_at, access_token_expires_at,
+            oidc_id_token_expires_at, refresh_token_expires_at, user_code_expires_at,
+            device_code_expires_at) is not null))
+      """;
+
+  private static final String ANY_MISSING_SQL = "select exists (select 1 from oauth2_authorization where " + MISSING + ")";
+
+  private static final String BATCH_END_SQL = """
+      select max(id) from (select id from oauth2_authorization where id > ? order by id limit ?) batch
+      """;
+
+  private static final String BACKFILL_SQL = """
+      update oauth2_authorization
+      set authorization_code_digest = sha256(convert_to(authorization_code_value, 'UTF8')),
+          access_token_digest       = sha256(convert_to(access_token_value, 'UTF8')),
+          refresh_token_digest      = sha256(convert_to(refresh_token_value, 'UTF8')),
+          state_digest              = sha256(convert_to(state, 'UTF8')),
+          oidc_id_token_digest      = sha256(convert_to(oidc_id_token_value, 'UTF8')),
+          user_code_digest          = sha256(convert_to(user_code_value, 'UTF8')),
+          device_code_digest        = sha256(convert_to(device_code_value, 'UTF8')),
+          expires_at                = greatest(authorization_code_expires_at, access_token_expires_at,
+                                               oidc_id_token_expires_at, refresh_token_expires_at,
+                                               user_code_expires_at, device_code_expires_at)
+      where id > ? and id <= ? and
+      """ + MISSING;
+
+  private final JdbcTemplate jdbc;
+
+  private final int batchSize;
+
+  private final Duration batchPause;
+
+  AuthorizationDigestBackfill(
+      JdbcTemplate jdbc,
+      @Value("${authorization.reaper.batch-size}") int batchSize,
+      @Value("${authorization.reaper.batch-pause}") Duration batchPause) {
+    this.jdbc = jdbc;
+    this.batchSize = batchSize;
+    this.batchPause = batchPause;
+  }
+
+  void backfill() {
+    if (!missing(this.jdbc)) return;
+    // the advisory lock belongs to a database session, so everything happens on one connection
+    this.jdbc.execute((ConnectionCallback<Void>) connection -> {
+      var session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+      session.queryForObject("select pg_advisory_lock(?)", Object.class, ADVISORY_LOCK_KEY);
+      try {
+        // another replica may have done it while we waited
+        if (missing(session)) backfill(session);
+      } finally {
+        session.queryForObject("select pg_advisory_unlock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+      }
+      return null;
+    });
+  }
+
+  private static boolean missing(JdbcTemplate jdbc) {
+    return Boolean.TRUE.equals(jdbc.queryForObject(ANY_MISSING_SQL, Boolean.class));
+  }
+
+  private void backfill(JdbcTemplate session) {
+    var after = "";
+    var total = 0;
+    while (true) {
+      var end = session.queryForObject(BATCH_END_SQL, String.class, after, this.batchSize);
+      if (end == null) break;
+      total += session.update(BACKFILL_SQL, after, end);
+      after = end;
+      try {
+        Thread.sleep(this.batchPause);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    log.info("filled in the token digests of {} authorization(s)", total);
+  }
+}
@@ -0,0 +1,114 @@
+package dev.hobie.authorization_service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.util.StringUtils;
+
+// the parameters JdbcOAuth2AuthorizationService binds to its insert and update statements, in the
+// same order, but with the attributes and token metadata encoded by an AttributeCodec. they're bytea,
+// unless the table still has the text columns of the stock schema: then anything that isn't JSON is
+// written as base64 after BASE64_PREFIX. nodes without an AttributeCodec read neither, which is why
+// authorization.attributes.codec is json until they're all gone.
+public class AuthorizationParametersMapper implements Function<OAuth2Authorization, List<SqlParameterValue>> {
+
+  // legacy JSON always starts with '{', so it can't be mistaken for this
+  static final String BASE64_PREFIX = "base64:";
+
+  private final AttributeCodec attributeCodec;
+
+  private final boolean textColumns;
+
+  public AuthorizationParametersMapper(AttributeCodec attributeCodec) {
+    this(attributeCodec, false);
+  }
+
+  public AuthorizationParametersMapper(AttributeCodec attributeCodec, boolean textColumns) {
+    this.attributeCodec = attributeCodec;
+    this.textColumns = textColumns;
+  }
+
+  @Override
+  public List<SqlParameterValue> apply(OAuth2Authorization authorization) {
+    var parameters = new ArrayList<SqlParameterValue>();
+    parameters.add(new SqlParameterValue(Types.VARCHAR, authorization.getId()));
+    parameters.add(new SqlParameterValue(Types.VARCHAR, authorization.getRegisteredClientId()));
+    parameters.add(new SqlParameterValue(Types.VARCHAR, authorization.getPrincipalName()));
+    parameters.add(new SqlParameterValue(Types.VARCHAR, authorization.getAuthorizationGrantType().getValue()));
+    parameters.add(new SqlParameterValue(Types.VARCHAR, delimited(authorization.getAuthorizedScopes())));
+    parameters.add(encode(authorization.getAttributes()));
+    String state = authorization.getAttribute(OAuth2ParameterNames.STATE);
+    parameters.add(new SqlParameterValue(Types.VARCHAR, StringUtils.hasText(state) ? state : null));
+
+    addToken(parameters, authorization.getToken(OAuth2AuthorizationCode.class));
+    var accessToken = authorization.getToken(OAuth2AccessToken.class);
+    addToken(parameters, accessToken);
+    parameters.add(new SqlParameterValue(
+        Types.VARCHAR, accessToken != null ? accessToken.getToken().getTokenType().getValue() : null));
+    parameters.add(new SqlParameterValue(
+        Types.VARCHAR, accessToken != null ? delimited(accessToken.getToken().getScopes()) : null));
+    addToken(parameters, authorization.getToken(OidcIdToken.class));
+    addToken(parameters, authorization.getToken(OAuth2RefreshToken.class));
+    addToken(parameters, authorization.getToken(OAuth2UserCode.class));
+    addToken(parameters, authorization.getToken(OAuth2DeviceCode.class));
+    return parameters;
+  }
+
+  // value, issued at, expires at and metadata
+  private <T extends OAuth2Token> void addToken(List<SqlParameterValue> parameters, OAuth2Authorization.Token<T> token) {
+    var value = token != null ? token.getToken() : null;
+    parameters.add(new SqlParameterValue(Types.VARCHAR, value != null ? value.getTokenValue() : null));
+    parameters.add(new SqlParameterValue(Types.TIMESTAMP, timestamp(value != null ? value.getIssuedAt() : null)));
+    parameters.add(new SqlParameterValue(Types.TIMESTAMP, timestamp(value != null ? value.getExpiresAt() : null)));
+    parameters.add(encode(token != null ? token.getMetadata() : null));
+  }
+
+  SqlParameterValue encode(Map<String, Object> attributes) {
+    var encoded = attributes != null ? this.attributeCodec.encode(attributes) : null;
+    return this.textColumns
+        ? new SqlParameterValue(Types.VARCHAR, encoded != null ? text(encoded) : null)
+        : new SqlParameterValue(Types.BINARY, encoded);
+  }
+
+  static String text(byte[] encoded) {
+    return isJson(encoded)
+        ? new String(encoded, StandardCharsets.UTF_8)
+        : BASE64_PREFIX + Base64.getEncoder().encodeToString(encoded);
+  }
+
+  // what text(...) wrote, or the JSON the stock service wrote
+  static byte[] bytes(String text) {
+    return text.startsWith(BASE64_PREFIX)
+        ? Base64.getDecoder().decode(text.substring(BASE64_PREFIX.length()))
+        : text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  static boolean isJson(byte[] encoded) {
+    return encoded.length > 0 && encoded[0] == '{';
+  }
+
+  private static Timestamp timestamp(Instant instant) {
+    return instant != null ? Timestamp.from(instant) : null;
+  }
+
+  private static String delimited(Collection<String> values) {
+    return values == null || values.isEmpty() ? null : StringUtils.collectionToDelimitedString(values, ",");
+  }
+}
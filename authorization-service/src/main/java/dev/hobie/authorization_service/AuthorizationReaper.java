@@ -0,0 +1,160 @@
+package dev.hobie.authorization_service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+// deletes authorizations once the last of their codes and tokens has expired, authorization requests
+// that were abandoned before anything was issued, expired client_credentials token entries,
+// consents whose client or user is gone, and expired http sessions (with their attributes). it deletes
+// in small batches with a pause in between, so it never holds many locks or floods the WAL, and only
+// the replica holding the advisory lock reaps. it runs on a thread of its own: on the scheduler's one
+// thread, a long run would hold up the key ring refresh and key rotation.
+@Slf4j
+@Component
+class AuthorizationReaper implements AutoCloseable {
+
+  // an arbitrary key that all the replicas agree on
+  private static final long ADVISORY_LOCK_KEY = 0x6f61757468726561L;
+
+  private static final String EXPIRED_AUTHORIZATIONS_SQL = """
+      delete from oauth2_authorization where id in (
+          select id from oauth2_authorization where expires_at < ? order by expires_at limit ?)
+      """;
+
+  private static final String ABANDONED_AUTHORIZATIONS_SQL = """
+      delete from oauth2_authorization where id in (
+          select id from oauth2_authorization where expires_at is null and created_at < ? order by created_at limit ?)
+      """;
+
+  private static final String EXPIRED_CLIENT_CREDENTIALS_TOKENS_SQL = """
+      delete from oauth2_client_credentials_token where token_digest in (
+          select token_digest from oauth2_client_credentials_token where expires_at < ? order by expires_at limit ?)
+      """;
+
+  private static final String EXPIRED_SESSIONS_SQL = """
+      delete from spring_session where primary_id in (
+          select primary_id from spring_session where expiry_time < ? order by expiry_time limit ?)
+      """;
+
+  private static final String ORPHANED_CONSENTS_SQL = """
+      delete from oauth2_authorization_consent where (registered_client_id, principal_name) in (
+          select c.registered_client_id, c.principal_name from oauth2_authorization_consent c
+          where not exists (select 1 from oauth2_registered_client r where r.id = c.registered_client_id)
+             or not exists (select 1 from users u where u.username = c.principal_name)
+          limit ?)
+      """;
+
+  private final JdbcTemplate jdbc;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Timer runTimer;
+
+  private final int batchSize;
+
+  private final Duration batchPause;
+
+  private final Duration abandonedAfter;
+
+  private final ScheduledExecutorService executor;
+
+  AuthorizationReaper(
+      JdbcTemplate jdbc,
+      MeterRegistry meterRegistry,
+      @Value("${authorization.reaper.batch-size}") int batchSize,
+      @Value("${authorization.reaper.batch-pause}") Duration batchPause,
+      @Value("${authorization.reaper.abandoned-after}") Duration abandonedAfter,
+      @Value("${authorization.reaper.interval}") Duration interval) {
+    this.jdbc = jdbc;
+    this.meterRegistry = meterRegistry;
+    this.runTimer = meterRegistry.timer("authorization.reaper.runs");
+    this.batchSize = batchSize;
+    this.batchPause = batchPause;
+    this.abandonedAfter = abandonedAfter;
+    var threadFactory = new CustomizableThreadFactory("authorization-reaper-");
+    threadFactory.setDaemon(true);
+    this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    this.executor.scheduleWithFixedDelay(
+        this::scheduledReap, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  // an exception would cancel every run after this one
+  private void scheduledReap() {
+    try {
+      reap();
+    } catch (RuntimeException e) {
+      log.warn("couldn't reap authorizations", e);
+    }
+  }
+
+  public void reap() {
+    // the advisory lock belongs to a database session, so everything happens on one connection
+    this.jdbc.execute((ConnectionCallback<Void>) connection -> {
+      var session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+      var locked = session.queryForObject("select pg_try_advisory_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+      if (!Boolean.TRUE.equals(locked)) {
+        log.debug("another replica is reaping authorizations");
+        return null;
+      }
+      try {
+        this.runTimer.record(() -> reap(session));
+      } finally {
+        session.queryForObject("select pg_advisory_unlock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+      }
+      return null;
+    });
+  }
+
+  private void reap(JdbcTemplate session) {
+    var now = Instant.now();
+    var expired = deleteInBatches(session, "oauth2_authorization", EXPIRED_AUTHORIZATIONS_SQL, Timestamp.from(now));
+    var abandoned = deleteInBatches(
+        session, "oauth2_authorization", ABANDONED_AUTHORIZATIONS_SQL, Timestamp.from(now.minus(this.abandonedAfter)));
+    var tokens = deleteInBatches(
+        session, "oauth2_client_credentials_token", EXPIRED_CLIENT_CREDENTIALS_TOKENS_SQL, Timestamp.from(now));
+    var consents = deleteInBatches(session, "oauth2_authorization_consent", ORPHANED_CONSENTS_SQL);
+    var sessions = deleteInBatches(session, "spring_session", EXPIRED_SESSIONS_SQL, now.toEpochMilli());
+    if (expired + abandoned + tokens + consents + sessions > 0)
+      log.info(
+          "reaped {} expired and {} abandoned authorization(s), {} expired client_credentials token(s), {} orphaned consent(s) and {} expired session(s)",
+          expired, abandoned, tokens, consents, sessions);
+  }
+
+  private int deleteInBatches(JdbcTemplate session, String table, String sql, Object... arguments) {
+    var counter = this.meterRegistry.counter("authorization.reaper.deleted", "table", table);
+    var parameters = new Object[arguments.length + 1];
+    System.arraycopy(arguments, 0, parameters, 0, arguments.length);
+    parameters[arguments.length] = this.batchSize;
+    var total = 0;
+    while (true) {
+      var deleted = session.update(sql, parameters);
+      counter.increment(deleted);
+      total += deleted;
+      if (deleted < this.batchSize) return total;
+      try {
+        Thread.sleep(this.batchPause);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return total;
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    this.executor.shutdownNow();
+  }
+}
@@ -0,0 +1,128 @@
+package dev.hobie.authorization_service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.NonNull;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.StringUtils;
+
+// reads what AuthorizationParametersMapper writes, the same way JdbcOAuth2AuthorizationService
+// reads its own rows
+public class AuthorizationRowMapper implements RowMapper<OAuth2Authorization> {
+
+  private final RegisteredClientRepository registeredClientRepository;
+
+  private final AttributeCodec attributeCodec;
+
+  public AuthorizationRowMapper(RegisteredClientRepository registeredClientRepository, AttributeCodec attributeCodec) {
+    this.registeredClientRepository = registeredClientRepository;
+    this.attributeCodec = attributeCodec;
+  }
+
+  @Override
+  public OAuth2Authorization mapRow(@NonNull ResultSet rs, int rowNum) throws SQLException {
+    var registeredClientId = rs.getString("registered_client_id");
+    var registeredClient = this.registeredClientRepository.findById(registeredClientId);
+    if (registeredClient == null)
+      throw new DataRetrievalFailureException("The RegisteredClient with id '" + registeredClientId
+          + "' was not found in the RegisteredClientRepository.");
+
+    var attributes = decode(rs, "attributes");
+    var builder = OAuth2Authorization.withRegisteredClient(registeredClient)
+        .id(rs.getString("id"))
+        .principalName(rs.getString("principal_name"))
+        .authorizationGrantType(new AuthorizationGrantType(rs.getString("authorization_grant_type")))
+        .authorizedScopes(scopes(rs.getString("authorized_scopes")))
+        .attributes(map -> map.putAll(attributes));
+    var state = rs.getString("state");
+    if (StringUtils.hasText(state)) builder.attribute(OAuth2ParameterNames.STATE, state);
+
+    var code = rs.getString("authorization_code_value");
+    if (StringUtils.hasText(code)) {
+      var metadata = decode(rs, "authorization_code_metadata");
+      builder.token(
+          new OAuth2AuthorizationCode(code, instant(rs, "authorization_code_issued_at"),
+              instant(rs, "authorization_code_expires_at")),
+          map -> map.putAll(metadata));
+    }
+
+    var accessToken = rs.getString("access_token_value");
+    if (StringUtils.hasText(accessToken)) {
+      var metadata = decode(rs, "access_token_metadata");
+      var tokenType = OAuth2AccessToken.TokenType.BEARER.getValue().equalsIgnoreCase(rs.getString("access_token_type"))
+          ? OAuth2AccessToken.TokenType.BEARER
+          : null;
+      builder.token(
+          new OAuth2AccessToken(tokenType, accessToken, instant(rs, "access_token_issued_at"),
+              instant(rs, "access_token_expires_at"), scopes(rs.getString("access_token_scopes"))),
+          map -> map.putAll(metadata));
+    }
+
+    var idToken = rs.getString("oidc_id_token_value");
+    if (StringUtils.hasText(idToken)) {
+      var metadata = decode(rs, "oidc_id_token_metadata");
+      @SuppressWarnings("unchecked")
+      var claims = (Map<String, Object>) metadata.get(OAuth2Authorization.Token.CLAIMS_METADATA_NAME);
+      builder.token(
+          new OidcIdToken(idToken, instant(rs, "oidc_id_token_issued_at"), instant(rs, "oidc_id_token_expires_at"), claims),
+          map -> map.putAll(metadata));
+    }
+
+    var refreshToken = rs.getString("refresh_token_value");
+    if (StringUtils.hasText(refreshToken)) {
+      var metadata = decode(rs, "refresh_token_metadata");
+      builder.token(
+          new OAuth2RefreshToken(refreshToken, instant(rs, "refresh_token_issued_at"),
+              instant(rs, "refresh_token_expires_at")),
+          map -> map.putAll(metadata));
+    }
+
+    var userCode = rs.getString("user_code_value");
+    if (StringUtils.hasText(userCode)) {
+      var metadata = decode(rs, "user_code_metadata");
+      builder.token(
+          new OAuth2UserCode(userCode, instant(rs, "user_code_issued_at"), instant(rs, "user_code_expires_at")),
+          map -> map.putAll(metadata));
+    }
+
+    var deviceCode = rs.getString("device_code_value");
+    if (StringUtils.hasText(deviceCode)) {
+      var metadata = decode(rs, "device_code_metadata");
+      builder.token(
+          new OAuth2DeviceCode(deviceCode, instant(rs, "device_code_issued_at"), instant(rs, "device_code_expires_at")),
+          map -> map.putAll(metadata));
+    }
+    return builder.build();
+  }
+
+  // bytea, or the text columns of the stock schema
+  private Map<String, Object> decode(ResultSet rs, String column) throws SQLException {
+    var stored = rs.getObject(column);
+    if (stored == null) return Map.of();
+    return this.attributeCodec.decode(
+        stored instanceof String text ? AuthorizationParametersMapper.bytes(text) : (byte[]) stored);
+  }
+
+  private static Instant instant(ResultSet rs, String column) throws SQLException {
+    var timestamp = rs.getTimestamp(column);
+    return timestamp != null ? timestamp.toInstant() : null;
+  }
+
+  private static Set<String> scopes(String delimited) {
+    return delimited != null ? StringUtils.commaDelimitedListToSet(delimited) : Set.of();
+  }
+}
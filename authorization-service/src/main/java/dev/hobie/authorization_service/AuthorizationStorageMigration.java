@@ -0,0 +1,142 @@
+package dev.hobie.authorization_service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+// the attributes and token metadata of oauth2_authorization are bytea in our schema, but text in the
+// stock one. we never change the type of a column in place, as that locks the whole table: we write
+// to text columns what AuthorizationParametersMapper makes of them, and read both. rows still holding
+// JSON are rewritten by the AttributeCodec the next time their authorization is saved, or, once
+// authorization.attributes.backfill.enabled is set, by migrate(), a batch at a time.
+@Slf4j
+@Component
+class AuthorizationStorageMigration {
+
+  private static final String[] COLUMNS = {
+    "attributes",
+    "authorization_code_metadata",
+    "access_token_metadata",
+    "oidc_id_token_metadata",
+    "refresh_token_metadata",
+    "user_code_metadata",
+    "device_code_metadata"
+  };
+
+  // rows that someone is saving right now are skipped: the save rewrites them anyway
+  private static final String SELECT_BATCH_SQL = """
+      select id, attributes, authorization_code_metadata, access_token_metadata, oidc_id_token_metadata,
+             refresh_token_metadata, user_code_metadata, device_code_metadata
+      from oauth2_authorization where id > ? order by id limit ? for update skip locked
+      """;
+
+  private static final String UPDATE_SQL = """
+      update oauth2_authorization
+      set attributes = ?, authorization_code_metadata = ?, access_token_metadata = ?, oidc_id_token_metadata = ?,
+          refresh_token_metadata = ?, user_code_metadata = ?, device_code_metadata = ?
+      where id = ?
+      """;
+
+  private final JdbcTemplate jdbc;
+
+  private final TransactionOperations transactionOperations;
+
+  private final AttributeCodec attributeCodec;
+
+  private final int batchSize;
+
+  private final Duration batchPause;
+
+  private record StoredAttributes(String id, Object[] columns) {}
+
+  AuthorizationStorageMigration(
+      JdbcTemplate jdbc,
+      TransactionOperations transactionOperations,
+      AttributeCodec attributeCodec,
+      @Value("${authorization.attributes.backfill.batch-size}") int batchSize,
+      @Value("${authorization.attributes.backfill.batch-pause}") Duration batchPause) {
+    this.jdbc = jdbc;
+    this.transactionOperations = transactionOperations;
+    this.attributeCodec = attributeCodec;
+    this.batchSize = batchSize;
+    this.batchPause = batchPause;
+  }
+
+  boolean textColumns() {
+    var type = this.jdbc.queryForObject(
+        """
+        select data_type from information_schema.columns
+        where table_schema = current_schema() and table_name = 'oauth2_authorization'
+          and column_name = 'attributes'
+        """,
+        String.class);
+    return "text".equals(type);
+  }
+
+  // rewrites the JSON still in oauth2_authorization with the AttributeCodec. each batch is its own
+  // short transaction, so replicas can run this side by side.
+  void migrate() {
+    if (AuthorizationParametersMapper.isJson(this.attributeCodec.encode(Map.of()))) {
+      log.info("the attribute codec writes JSON, so there's nothing to rewrite");
+      return;
+    }
+    var mapper = new AuthorizationParametersMapper(this.attributeCodec, textColumns());
+    var after = "";
+    var total = 0;
+    while (true) {
+      var batch = rewriteBatch(mapper, after);
+      if (batch == null) break;
+      total += batch.rewritten();
+      after = batch.last();
+      try {
+        Thread.sleep(this.batchPause);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    log.info("rewrote {} authorization(s) still holding JSON", total);
+  }
+
+  private record Batch(String last, int rewritten) {}
+
+  private Batch rewriteBatch(AuthorizationParametersMapper mapper, String after) {
+    return this.transactionOperations.execute(status -> {
+      var rows = this.jdbc.query(SELECT_BATCH_SQL, (rs, rowNum) -> {
+        var columns = new Object[COLUMNS.length];
+        for (var i = 0; i < COLUMNS.length; i++) columns[i] = rs.getObject(COLUMNS[i]);
+        return new StoredAttributes(rs.getString("id"), columns);
+      }, after, this.batchSize);
+      if (rows.isEmpty()) return null;
+      var updates = new ArrayList<Object[]>();
+      for (var row : rows) {
+        var parameters = rewrite(mapper, row);
+        if (parameters != null) updates.add(parameters);
+      }
+      if (!updates.isEmpty()) this.jdbc.batchUpdate(UPDATE_SQL, updates);
+      return new Batch(rows.get(rows.size() - 1).id(), updates.size());
+    });
+  }
+
+  // the update's parameters, or null if there's no JSON left in the row
+  private Object[] rewrite(AuthorizationParametersMapper mapper, StoredAttributes row) {
+    var parameters = new ArrayList<>(Arrays.asList(row.columns()));
+    var json = false;
+    for (var i = 0; i < COLUMNS.length; i++) {
+      var stored = row.columns()[i];
+      var bytes = stored instanceof String text ? AuthorizationParametersMapper.bytes(text) : (byte[]) stored;
+      if (bytes == null || !AuthorizationParametersMapper.isJson(bytes)) continue;
+      parameters.set(i, mapper.encode(this.attributeCodec.decode(bytes)));
+      json = true;
+    }
+    if (!json) return null;
+    parameters.add(row.id());
+    return parameters.toArray();
+  }
+}
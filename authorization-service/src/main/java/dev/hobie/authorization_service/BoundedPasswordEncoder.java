@@ -0,0 +1,160 @@
+package dev.hobie.authorization_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// runs every encode and match on a small pool of its own, so that a burst of logins or client
+// authentications can only ever keep that many cores busy hashing, and the request threads that
+// serve everything else still get to run. once the pool is busy and its queue is full, callers are
+// turned away at once with a PasswordHashingSaturatedException instead of queueing without bound.
+// work that can wait, like an import, goes through encodeInBackground, which takes no more than a
+// few of the pool's places at a time and waits for room rather than being turned away.
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+  // how long background work waits before trying a full pool again
+  private static final Duration BACKGROUND_RETRY_PAUSE = Duration.ofMillis(10);
+
+  private final PasswordEncoder delegate;
+
+  private final ThreadPoolExecutor executor;
+
+  private final Duration retryAfter;
+
+  private final Timer queueWait;
+
+  private final Timer hashing;
+
+  private final Counter rejections;
+
+  private final Semaphore background;
+
+  BoundedPasswordEncoder(
+      PasswordEncoder delegate,
+      int concurrency,
+      int queueDepth,
+      int backgroundConcurrency,
+      Duration retryAfter,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.retryAfter = retryAfter;
+    this.background = new Semaphore(backgroundConcurrency);
+    this.executor = new ThreadPoolExecutor(
+        concurrency,
+        concurrency,
+        0,
+        TimeUnit.MILLISECONDS,
+        queueDepth > 0 ? new ArrayBlockingQueue<>(queueDepth) : new SynchronousQueue<>(),
+        new CustomizableThreadFactory("password-hashing-"));
+    this.queueWait = Timer.builder("password.hashing.queue-wait")
+        .description("time a password spends waiting for a hashing thread")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.hashing = Timer.builder("password.hashing.duration")
+        .description("time spent encoding or matching a password")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    Gauge.builder("password.hashing.queued", this.executor, executor -> executor.getQueue().size())
+        .description("passwords waiting for a hashing thread")
+        .register(meterRegistry);
+    this.rejections = Counter.builder("password.hashing.rejections")
+        .description("passwords turned away because every hashing thread was busy and the queue was full")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return hash(() -> this.delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return hash(() -> this.delegate.matches(rawPassword, encodedPassword));
+  }
+
+  // hashes the password on the pool once one of the background places is free, blocking until then,
+  // so that whoever is feeding it passwords can't get ahead of the hashing
+  public CompletableFuture<String> encodeInBackground(CharSequence rawPassword) {
+    try {
+      this.background.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("there's been an exception", e);
+    }
+    var encoded = new CompletableFuture<String>();
+    var submitted = System.nanoTime();
+    Runnable work = () -> {
+      try {
+        this.queueWait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+        encoded.complete(this.hashing.record(() -> this.delegate.encode(rawPassword)));
+      } catch (RuntimeException e) {
+        encoded.completeExceptionally(e);
+      } finally {
+        this.background.release();
+      }
+    };
+    // logins come first: while they have the pool and the queue to themselves, wait
+    while (true) {
+      try {
+        this.executor.execute(work);
+        return encoded;
+      } catch (RejectedExecutionException e) {
+        if (this.executor.isShutdown()) {
+          this.background.release();
+          throw e;
+        }
+      }
+      try {
+        Thread.sleep(BACKGROUND_RETRY_PAUSE);
+      } catch (InterruptedException e) {
+        this.background.release();
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("there's been an exception", e);
+      }
+    }
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return this.delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void close() {
+    this.executor.shutdown();
+  }
+
+  private <T> T hash(Callable<T> work) {
+    var submitted = System.nanoTime();
+    try {
+      return this.executor
+          .submit(() -> {
+            this.queueWait.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            return this.hashing.recordCallable(work);
+          })
+          .get();
+    } catch (RejectedExecutionException e) {
+      this.rejections.increment();
+      throw new PasswordHashingSaturatedException(this.retryAfter);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("there's been an exception", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+      throw new IllegalStateException("there's been an exception", e.getCause());
+    }
+  }
+}
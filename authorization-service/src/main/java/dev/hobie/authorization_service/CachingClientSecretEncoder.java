@@ -0,0 +1,85 @@
+package dev.hobie.authorization_service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// remembers, for a short while, which client secrets have recently matched their stored hash, so
+// that a client asking for a token every few seconds doesn't pay for a round of bcrypt each time.
+// an entry is an HMAC of the stored hash and the presented secret, under a key that never leaves
+// this process, so neither secret can be recovered from the cache. a new secret means a new stored
+// hash, so entries for the old one simply stop matching and expire. failed matches aren't cached:
+// guessing a secret costs as much as it always did.
+class CachingClientSecretEncoder implements PasswordEncoder {
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private final PasswordEncoder delegate;
+
+  private final SecretKeySpec key;
+
+  private final Cache<String, Boolean> verified;
+
+  private final Timer verifications;
+
+  CachingClientSecretEncoder(
+      PasswordEncoder delegate, Duration timeToLive, long maximumSize, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    var key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    this.key = new SecretKeySpec(key, ALGORITHM);
+    this.verified = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(timeToLive)
+        .recordStats()
+        .build();
+    // the time a hit saves is the mean of this timer
+    this.verifications = Timer.builder("oauth2.client-secret.verifications")
+        .description("time spent checking a client secret against its stored hash")
+        .register(meterRegistry);
+    CaffeineCacheMetrics.monitor(meterRegistry, this.verified, "oauth2.client-secrets");
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return this.delegate.encode(rawPassword);
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    if (rawPassword == null || encodedPassword == null) return this.delegate.matches(rawPassword, encodedPassword);
+    var entry = entry(rawPassword, encodedPassword);
+    if (this.verified.getIfPresent(entry) != null) return true;
+    var matches = this.verifications.record(() -> this.delegate.matches(rawPassword, encodedPassword));
+    if (Boolean.TRUE.equals(matches)) this.verified.put(entry, true);
+    return Boolean.TRUE.equals(matches);
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return this.delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private String entry(CharSequence rawPassword, String encodedPassword) {
+    try {
+      var mac = Mac.getInstance(ALGORITHM);
+      mac.init(this.key);
+      mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+      mac.update((byte) 0);
+      mac.update(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(mac.doFinal());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("there's been an exception", e);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package dev.hobie.authorization_service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationConsent;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationConsentService;
+import org.springframework.util.Assert;
+
+// keeps consents in memory, by client and user, so that /oauth2/authorize doesn't query for one on
+// every request. that a user hasn't consented is remembered too, for a shorter while, since that's
+// the answer every first visit gets. saves and removals go through to the delegate and then replace
+// the cached answer. another node's changes show up here once the entry expires, so a consent revoked
+// there may still be honored here for up to the time to live, and a user who has just consented there
+// may be asked again here for up to the negative time to live.
+public class CachingOAuth2AuthorizationConsentService implements OAuth2AuthorizationConsentService {
+
+  private final OAuth2AuthorizationConsentService delegate;
+
+  private final LoadingCache<Key, Optional<OAuth2AuthorizationConsent>> consents;
+
+  public CachingOAuth2AuthorizationConsentService(
+      OAuth2AuthorizationConsentService delegate,
+      Duration timeToLive,
+      Duration negativeTimeToLive,
+      long maximumSize,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.consents = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(LifetimeExpiry.<Key, OAuth2AuthorizationConsent>negativeAware(timeToLive, negativeTimeToLive))
+        .recordStats()
+        .build(key -> Optional.ofNullable(delegate.findById(key.registeredClientId(), key.principalName())));
+    CaffeineCacheMetrics.monitor(meterRegistry, this.consents, "oauth2.authorization-consents");
+  }
+
+  @Override
+  public void save(OAuth2AuthorizationConsent authorizationConsent) {
+    Assert.notNull(authorizationConsent, "authorizationConsent cannot be null");
+    this.delegate.save(authorizationConsent);
+    this.consents.put(key(authorizationConsent), Optional.of(authorizationConsent));
+  }
+
+  @Override
+  public void remove(OAuth2AuthorizationConsent authorizationConsent) {
+    Assert.notNull(authorizationConsent, "authorizationConsent cannot be null");
+    this.delegate.remove(authorizationConsent);
+    this.consents.put(key(authorizationConsent), Optional.empty());
+  }
+
+  @Override
+  public OAuth2AuthorizationConsent findById(String registeredClientId, String principalName) {
+    Assert.hasText(registeredClientId, "registeredClientId cannot be empty");
+    Assert.hasText(principalName, "principalName cannot be empty");
+    return this.consents.get(new Key(registeredClientId, principalName)).orElse(null);
+  }
+
+  private static Key key(OAuth2AuthorizationConsent authorizationConsent) {
+    return new Key(authorizationConsent.getRegisteredClientId(), authorizationConsent.getPrincipalName());
+  }
+
+  private record Key(String registeredClientId, String principalName) {}
+}
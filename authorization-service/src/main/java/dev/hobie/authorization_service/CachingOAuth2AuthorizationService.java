@@ -0,0 +1,126 @@
+package dev.hobie.authorization_service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.util.Assert;
+
+// keeps recently used authorizations in memory, by id and by the value of their access and refresh
+// tokens, so that introspecting a token doesn't cost a query and a round of JSON parsing each time.
+// saves and removals go through to the delegate and then update the cache. another node's changes
+// only show up here once the entry expires, so lookups by authorization code and refresh token,
+// which are redeemed once and must not be replayed on another node, always go to the delegate.
+public class CachingOAuth2AuthorizationService implements OAuth2AuthorizationService, AutoCloseable {
+
+  private final OAuth2AuthorizationService delegate;
+
+  private final Cache<String, OAuth2Authorization> authorizations;
+
+  private final Cache<String, String> authorizationIdsByToken;
+
+  public CachingOAuth2AuthorizationService(
+      OAuth2AuthorizationService delegate,
+      Duration timeToLive,
+      long maximumSize,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.authorizations = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new LifetimeExpiry<String, OAuth2Authorization>(authorization -> lifetime(authorization, timeToLive)))
+        .recordStats()
+        .build();
+    this.authorizationIdsByToken = Caffeine.newBuilder()
+        .maximumSize(maximumSize * 2)
+        .expireAfterWrite(timeToLive)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, this.authorizations, "oauth2.authorizations");
+    CaffeineCacheMetrics.monitor(meterRegistry, this.authorizationIdsByToken, "oauth2.authorization-tokens");
+  }
+
+  @Override
+  public void save(OAuth2Authorization authorization) {
+    Assert.notNull(authorization, "authorization cannot be null");
+    this.delegate.save(authorization);
+    evict(authorization.getId());
+    cache(authorization);
+  }
+
+  @Override
+  public void remove(OAuth2Authorization authorization) {
+    Assert.notNull(authorization, "authorization cannot be null");
+    this.delegate.remove(authorization);
+    evict(authorization.getId());
+  }
+
+  @Override
+  public OAuth2Authorization findById(String id) {
+    Assert.hasText(id, "id cannot be empty");
+    var cached = this.authorizations.getIfPresent(id);
+    return cached != null ? cached : cache(this.delegate.findById(id));
+  }
+
+  @Override
+  public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+    Assert.hasText(token, "token cannot be empty");
+    if (tokenType == null || OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+      var id = this.authorizationIdsByToken.getIfPresent(token);
+      var cached = id != null ? this.authorizations.getIfPresent(id) : null;
+      // the index can outlive a change to the authorization it points to, so check it still applies
+      if (cached != null && holds(cached, token, tokenType)) return cached;
+    }
+    return cache(this.delegate.findByToken(token, tokenType));
+  }
+
+  // so that the container closes whatever it wraps, such as a WriteBehindOAuth2AuthorizationService
+  @Override
+  public void close() throws Exception {
+    if (this.delegate instanceof AutoCloseable closeable) closeable.close();
+  }
+
+  private OAuth2Authorization cache(OAuth2Authorization authorization) {
+    if (authorization == null) return null;
+    this.authorizations.put(authorization.getId(), authorization);
+    tokenValues(authorization).forEach(value -> this.authorizationIdsByToken.put(value, authorization.getId()));
+    return authorization;
+  }
+
+  private void evict(String id) {
+    var previous = this.authorizations.asMap().remove(id);
+    if (previous != null) this.authorizationIdsByToken.invalidateAll(tokenValues(previous).toList());
+  }
+
+  private static Stream<String> tokenValues(OAuth2Authorization authorization) {
+    return Stream.of(authorization.getAccessToken(), authorization.getRefreshToken())
+        .filter(token -> token != null)
+        .map(token -> token.getToken().getTokenValue());
+  }
+
+  private static boolean holds(OAuth2Authorization authorization, String token, OAuth2TokenType tokenType) {
+    if (tokenType == null) return authorization.getToken(token) != null;
+    var accessToken = authorization.getAccessToken();
+    return accessToken != null && accessToken.getToken().getTokenValue().equals(token);
+  }
+
+  // an entry lives for the configured time to live, or until the last of its tokens expires, if
+  // that comes sooner
+  private static Duration lifetime(OAuth2Authorization authorization, Duration timeToLive) {
+    var now = Instant.now();
+    var lastExpiry = Stream.of(authorization.getAccessToken(), authorization.getRefreshToken())
+        .filter(token -> token != null)
+        .map(OAuth2Authorization.Token::getToken)
+        .map(OAuth2Token::getExpiresAt)
+        .filter(expiresAt -> expiresAt != null)
+        .max(Instant::compareTo);
+    var remaining = lastExpiry.map(expiresAt -> Duration.between(now, expiresAt)).orElse(timeToLive);
+    return remaining.compareTo(timeToLive) < 0 ? remaining : timeToLive;
+  }
+}
@@ -0,0 +1,80 @@
+package dev.hobie.authorization_service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.Assert;
+
+// keeps registered clients in memory, by id and by client id, so that authenticating a client
+// doesn't cost a query and a round of JSON parsing its settings each time. unknown ids are
+// remembered too, for a shorter while, so that guessing at client ids doesn't reach the database.
+// saves go through to the delegate and then replace the cached client. another node's changes show
+// up here once an entry is refreshed, which happens in the background on the first lookup after the
+// refresh interval; an entry that isn't looked up for a whole time to live is dropped instead.
+public class CachingRegisteredClientRepository implements RegisteredClientRepository {
+
+  private final RegisteredClientRepository delegate;
+
+  private final LoadingCache<String, Optional<RegisteredClient>> clientsById;
+
+  private final LoadingCache<String, Optional<RegisteredClient>> clientsByClientId;
+
+  public CachingRegisteredClientRepository(
+      RegisteredClientRepository delegate,
+      Duration timeToLive,
+      Duration negativeTimeToLive,
+      Duration refreshInterval,
+      long maximumSize,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.clientsById = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(LifetimeExpiry.<String, RegisteredClient>negativeAware(timeToLive, negativeTimeToLive))
+        .refreshAfterWrite(refreshInterval)
+        .recordStats()
+        .build(id -> Optional.ofNullable(delegate.findById(id)));
+    this.clientsByClientId = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(LifetimeExpiry.<String, RegisteredClient>negativeAware(timeToLive, negativeTimeToLive))
+        .refreshAfterWrite(refreshInterval)
+        .recordStats()
+        .build(clientId -> Optional.ofNullable(delegate.findByClientId(clientId)));
+    CaffeineCacheMetrics.monitor(meterRegistry, this.clientsById, "oauth2.registered-clients");
+    CaffeineCacheMetrics.monitor(meterRegistry, this.clientsByClientId, "oauth2.registered-client-ids");
+  }
+
+  @Override
+  public void save(RegisteredClient registeredClient) {
+    Assert.notNull(registeredClient, "registeredClient cannot be null");
+    this.delegate.save(registeredClient);
+    evict(registeredClient.getId(), registeredClient.getClientId());
+    this.clientsById.put(registeredClient.getId(), Optional.of(registeredClient));
+    this.clientsByClientId.put(registeredClient.getClientId(), Optional.of(registeredClient));
+  }
+
+  // drops a client changed behind this repository's back, by a bulk import for example, along with
+  // the answer for its client id, even if that was that there's no such client. the client id may
+  // have changed too, in which case the old one mustn't find this client anymore
+  public void evict(String id, String clientId) {
+    this.clientsById.invalidate(id);
+    this.clientsByClientId.invalidate(clientId);
+    this.clientsByClientId.asMap().values().removeIf(client -> client.isPresent() && client.get().getId().equals(id));
+  }
+
+  @Override
+  public RegisteredClient findById(String id) {
+    Assert.hasText(id, "id cannot be empty");
+    return this.clientsById.get(id).orElse(null);
+  }
+
+  @Override
+  public RegisteredClient findByClientId(String clientId) {
+    Assert.hasText(clientId, "clientId cannot be empty");
+    return this.clientsByClientId.get(clientId).orElse(null);
+  }
+}
@@ -0,0 +1,81 @@
+package dev.hobie.authorization_service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+// keeps recently loaded users in memory, so that a login or a principal reload in the code flow
+// doesn't cost a query for the user and another for its authorities each time. changes made
+// through this manager evict the user, changes made on another node show up here once the entry
+// expires. the only credential kept is the stored password hash, which matching needs anyway, and
+// every caller gets a copy of its own, since authentication erases the password of the one it gets.
+public class CachingUserDetailsManager implements UserDetailsManager {
+
+  private final UserDetailsManager delegate;
+
+  private final Cache<String, UserDetails> users;
+
+  public CachingUserDetailsManager(
+      UserDetailsManager delegate, Duration timeToLive, long maximumSize, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.users = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(timeToLive)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, this.users, "users");
+  }
+
+  @Override
+  public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    var user = this.users.get(username, name -> copy(this.delegate.loadUserByUsername(name)));
+    return copy(user);
+  }
+
+  @Override
+  public void createUser(UserDetails user) {
+    this.delegate.createUser(user);
+    this.users.invalidate(user.getUsername());
+  }
+
+  @Override
+  public void updateUser(UserDetails user) {
+    this.delegate.updateUser(user);
+    this.users.invalidate(user.getUsername());
+  }
+
+  @Override
+  public void deleteUser(String username) {
+    this.delegate.deleteUser(username);
+    this.users.invalidate(username);
+  }
+
+  // the delegate changes the password of whoever is logged in
+  @Override
+  public void changePassword(String oldPassword, String newPassword) {
+    this.delegate.changePassword(oldPassword, newPassword);
+    var authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null) this.users.invalidate(authentication.getName());
+  }
+
+  @Override
+  public boolean userExists(String username) {
+    return this.users.getIfPresent(username) != null || this.delegate.userExists(username);
+  }
+
+  // drops a user changed behind this manager's back, by a bulk import for example
+  public void evict(String username) {
+    this.users.invalidate(username);
+  }
+
+  private static UserDetails copy(UserDetails user) {
+    return User.withUserDetails(user).build();
+  }
+}
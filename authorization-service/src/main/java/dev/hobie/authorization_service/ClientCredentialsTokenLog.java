@@ -0,0 +1,200 @@
+package dev.hobie.authorization_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+// the record of client_credentials tokens whose authorizations aren't stored: one short row per
+// token, keyed by the digest of its value, written on a thread of its own in batches, so that
+// issuing a token doesn't wait on an insert. a revocation is another entry for the same token, which
+// the caller writes with writeNow. when the queue is full, or the log is closed, the caller writes
+// its own entry rather than lose it, and close() writes whatever's still queued. a batch that fails
+// is written again one entry at a time, and an entry that still fails goes back on the queue, until
+// it's failed maxAttempts times, when it's counted as lost.
+@Slf4j
+class ClientCredentialsTokenLog implements AutoCloseable {
+
+  record Entry(
+      byte[] tokenDigest,
+      String authorizationId,
+      String registeredClientId,
+      String principalName,
+      String scopes,
+      Instant issuedAt,
+      Instant expiresAt,
+      Instant revokedAt) {}
+
+  private static final String UPSERT_SQL = """
+      insert into oauth2_client_credentials_token (token_digest, authorization_id, registered_client_id,
+          principal_name, scopes, issued_at, expires_at, revoked_at)
+      values (?, ?, ?, ?, ?, ?, ?, ?)
+      on conflict (token_digest) do update
+      set revoked_at = coalesce(oauth2_client_credentials_token.revoked_at, excluded.revoked_at)
+      """;
+
+  private final JdbcOperations jdbc;
+
+  // an entry waiting to be written, with the number of times writing it has failed
+  private record Queued(Entry entry, int failedAttempts) {}
+
+  private final BlockingQueue<Queued> queue;
+
+  private final int batchSize;
+
+  private final int maxAttempts;
+
+  private final Duration flushInterval;
+
+  private final Thread writer;
+
+  private final Counter written;
+
+  private final Counter overflows;
+
+  private final Counter failures;
+
+  private volatile boolean running = true;
+
+  // appends hold the read lock while they queue, so close() can't drain the queue in between
+  private final ReadWriteLock closing = new ReentrantReadWriteLock();
+
+  ClientCredentialsTokenLog(
+      JdbcOperations jdbc,
+      int capacity,
+      int batchSize,
+      int maxAttempts,
+      Duration flushInterval,
+      MeterRegistry meterRegistry) {
+    this.jdbc = jdbc;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.flushInterval = flushInterval;
+    Gauge.builder("oauth2.client-credentials.log.queued", this.queue, BlockingQueue::size)
+        .description("token entries waiting to be written")
+        .register(meterRegistry);
+    this.written = Counter.builder("oauth2.client-credentials.log.written")
+        .description("token entries written")
+        .register(meterRegistry);
+    this.overflows = Counter.builder("oauth2.client-credentials.log.overflows")
+        .description("token entries written by the caller because the queue was full")
+        .register(meterRegistry);
+    this.failures = Counter.builder("oauth2.client-credentials.log.failures")
+        .description("token entries that couldn't be written")
+        .register(meterRegistry);
+    this.writer = new CustomizableThreadFactory("client-credentials-log-").newThread(this::run);
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  void append(Entry entry) {
+    this.closing.readLock().lock();
+    try {
+      if (this.running && this.queue.offer(new Queued(entry, 0))) return;
+    } finally {
+      this.closing.readLock().unlock();
+    }
+    this.overflows.increment();
+    lost(write(List.of(new Queued(entry, 0))));
+  }
+
+  // writes the entry before it returns, for those that mustn't wait in the queue, like revocations.
+  // if it can't, the caller gets the exception
+  void writeNow(Entry entry) {
+    this.jdbc.update(UPSERT_SQL, parameters(entry));
+    this.written.increment();
+  }
+
+  private void run() {
+    var batch = new ArrayList<Queued>(this.batchSize);
+    while (this.running) {
+      try {
+        var first = this.queue.poll(this.flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+        if (first == null) continue;
+        batch.add(first);
+        this.queue.drainTo(batch, this.batchSize - 1);
+        var failed = write(batch);
+        if (failed.isEmpty()) continue;
+        for (var queued : failed) {
+          var again = new Queued(queued.entry(), queued.failedAttempts() + 1);
+          if (again.failedAttempts() >= this.maxAttempts || !this.queue.offer(again)) lost(List.of(again));
+        }
+        // give the database a moment before trying again
+        Thread.sleep(this.flushInterval);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        // whatever it was, the writer has to keep going, or nothing queued after it is ever written
+        log.warn("couldn't write queued client_credentials token entries", e);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  // the entries it couldn't write
+  private List<Queued> write(List<Queued> entries) {
+    try {
+      this.jdbc.batchUpdate(UPSERT_SQL, entries.stream().map(queued -> parameters(queued.entry())).toList());
+      this.written.increment(entries.size());
+      return List.of();
+    } catch (RuntimeException e) {
+      if (entries.size() == 1) {
+        log.warn("couldn't write a client_credentials token entry", e);
+        return List.copyOf(entries);
+      }
+      log.warn("couldn't write {} client_credentials token entries, writing them one at a time", entries.size(), e);
+      var failed = new ArrayList<Queued>();
+      for (var entry : entries) failed.addAll(write(List.of(entry)));
+      return failed;
+    }
+  }
+
+  private void lost(List<Queued> entries) {
+    if (entries.isEmpty()) return;
+    this.failures.increment(entries.size());
+    log.error("lost {} client_credentials token entries", entries.size());
+  }
+
+  private static Object[] parameters(Entry entry) {
+    return new Object[] {
+      entry.tokenDigest(),
+      entry.authorizationId(),
+      entry.registeredClientId(),
+      entry.principalName(),
+      entry.scopes(),
+      Timestamp.from(entry.issuedAt()),
+      Timestamp.from(entry.expiresAt()),
+      entry.revokedAt() == null ? null : Timestamp.from(entry.revokedAt())
+    };
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    this.closing.writeLock().lock();
+    try {
+      this.running = false;
+    } finally {
+      this.closing.writeLock().unlock();
+    }
+    this.writer.join(this.flushInterval.multipliedBy(2).toMillis());
+    var remaining = new ArrayList<Queued>();
+    this.queue.drainTo(remaining);
+    for (var from = 0; from < remaining.size(); from += this.batchSize)
+      lost(write(remaining.subList(from, Math.min(remaining.size(), from + this.batchSize))));
+  }
+}
@@ -0,0 +1,21 @@
+package dev.hobie.authorization_service;
+
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+// our own token settings for clients that use the client_credentials grant. they're stored in the
+// client's token_settings along with the standard ones, and are off unless a client turns them on:
+// TokenSettings.builder().setting(ClientCredentialsTokenSettings.REUSE_ACCESS_TOKENS, true)
+public abstract class ClientCredentialsTokenSettings {
+
+  // answer a token request with a token issued earlier for the same scopes, while enough of its
+  // lifetime is left
+  public static final String REUSE_ACCESS_TOKENS = "settings.token.client-credentials.reuse-access-tokens";
+
+  // don't store the authorizations behind self-contained access tokens, only a short entry in the
+  // ClientCredentialsTokenLog
+  public static final String STATELESS = "settings.token.client-credentials.stateless";
+
+  static boolean isEnabled(RegisteredClient client, String setting) {
+    return Boolean.TRUE.equals(client.getTokenSettings().getSetting(setting));
+  }
+}
@@ -1,7 +1,11 @@
 package dev.hobie.authorization_service;
 
+import dev.hobie.authorization_service.keys.KeyAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.util.Set;
 import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,8 +22,29 @@ public class ClientsConfiguration {
 
   // <1>
   @Bean
-  RegisteredClientRepository registeredClientRepository(JdbcTemplate template) {
-    return new JdbcRegisteredClientRepository(template);
+  CachingRegisteredClientRepository registeredClientRepository(
+      JdbcTemplate template,
+      MeterRegistry meterRegistry,
+      @Value("${jwt.key.algorithms}") Set<KeyAlgorithm> algorithms,
+      @Value("${clients.cache.time-to-live}") Duration timeToLive,
+      @Value("${clients.cache.negative-time-to-live}") Duration negativeTimeToLive,
+      @Value("${clients.cache.refresh-interval}") Duration refreshInterval,
+      @Value("${clients.cache.maximum-size}") long maximumSize) {
+    // a client whose tokens we couldn't sign is turned away when it's registered
+    var repository = new JdbcRegisteredClientRepository(template) {
+      @Override
+      public void save(RegisteredClient registeredClient) {
+        KeyAlgorithm.checkSupported(registeredClient, algorithms);
+        super.save(registeredClient);
+      }
+    };
+    return new CachingRegisteredClientRepository(
+        repository,
+        timeToLive,
+        negativeTimeToLive,
+        refreshInterval,
+        maximumSize,
+        meterRegistry);
   }
 
   // <2>
@@ -0,0 +1,78 @@
+package dev.hobie.authorization_service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.JdbcOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.util.Assert;
+
+// looks every kind of token, and the state, up by the SHA-256 digest of its value, which a trigger
+// in oauth2-authorization-schema.sql keeps in an indexed column next to each value. the stock
+// service compares the unindexed text columns and so scans the whole table.
+public class DigestJdbcOAuth2AuthorizationService extends JdbcOAuth2AuthorizationService {
+
+  private static final String SELECT_AUTHORIZATION_SQL = """
+      select id, registered_client_id, principal_name, authorization_grant_type, authorized_scopes,
+             attributes, state, authorization_code_value, authorization_code_issued_at,
+             authorization_code_expires_at, authorization_code_metadata, access_token_value,
+             access_token_issued_at, access_token_expires_at, access_token_metadata, access_token_type,
+             access_token_scopes, oidc_id_token_value, oidc_id_token_issued_at, oidc_id_token_expires_at,
+             oidc_id_token_metadata, refresh_token_value, refresh_token_issued_at,
+             refresh_token_expires_at, refresh_token_metadata, user_code_value, user_code_issued_at,
+             user_code_expires_at, user_code_metadata, device_code_value, device_code_issued_at,
+             device_code_expires_at, device_code_metadata
+      from oauth2_authorization
+      where\s""";
+
+  private static final Map<String, String> DIGEST_FILTERS = Map.of(
+      OAuth2ParameterNames.STATE, "state_digest = ?",
+      OAuth2ParameterNames.CODE, "authorization_code_digest = ?",
+      OAuth2TokenType.ACCESS_TOKEN.getValue(), "access_token_digest = ?",
+      OidcParameterNames.ID_TOKEN, "oidc_id_token_digest = ?",
+      OAuth2TokenType.REFRESH_TOKEN.getValue(), "refresh_token_digest = ?",
+      OAuth2ParameterNames.USER_CODE, "user_code_digest = ?",
+      OAuth2ParameterNames.DEVICE_CODE, "device_code_digest = ?");
+
+  // introspection and revocation requests without a token_type_hint are the only callers that don't
+  // know the type, and they only ever present access and refresh tokens
+  private static final String ANY_DIGEST_FILTER =
+      "access_token_digest = ? or refresh_token_digest = ? or authorization_code_digest = ?";
+
+  public DigestJdbcOAuth2AuthorizationService(
+      JdbcOperations jdbcOperations, RegisteredClientRepository registeredClientRepository) {
+    super(jdbcOperations, registeredClientRepository);
+  }
+
+  @Override
+  public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+    Assert.hasText(token, "token cannot be empty");
+    if (tokenType == null) {
+      var digest = digest(token);
+      return findBy(ANY_DIGEST_FILTER, digest, digest, digest);
+    }
+    var filter = DIGEST_FILTERS.get(tokenType.getValue());
+    return filter != null ? findBy(filter, digest(token)) : super.findByToken(token, tokenType);
+  }
+
+  private OAuth2Authorization findBy(String filter, Object... digests) {
+    var result =
+        getJdbcOperations().query(SELECT_AUTHORIZATION_SQL + filter, getAuthorizationRowMapper(), digests);
+    return result.isEmpty() ? null : result.get(0);
+  }
+
+  // must agree with sha256(convert_to(value, 'UTF8')) in the trigger
+  static byte[] digest(String token) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("there's been an exception", e);
+    }
+  }
+}
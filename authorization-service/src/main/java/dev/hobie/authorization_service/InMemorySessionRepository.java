@@ -0,0 +1,82 @@
+package dev.hobie.authorization_service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+
+// keeps http sessions in memory, on this node only, for a single node or a load balancer that sends
+// each user back to the same node. it behaves like the jdbc and redis stores otherwise: attributes
+// are kept as the bytes the same SessionAttributeConverter writes, so an attribute that couldn't be
+// stored there fails here too, and a session is dropped once it's gone unused for its max inactive
+// interval. at most maximumSize sessions are kept; past that the least used go first.
+class InMemorySessionRepository implements SessionRepository<MapSession> {
+
+  private final Cache<String, MapSession> sessions;
+
+  private final SessionAttributeConverter converter;
+
+  private final Duration defaultMaxInactiveInterval;
+
+  InMemorySessionRepository(
+      SessionAttributeConverter converter,
+      Duration defaultMaxInactiveInterval,
+      long maximumSize,
+      MeterRegistry meterRegistry) {
+    this.converter = converter;
+    this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+    this.sessions = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new LifetimeExpiry<String, MapSession>(InMemorySessionRepository::lifetime))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, this.sessions, "http.sessions");
+  }
+
+  @Override
+  public MapSession createSession() {
+    var session = new MapSession();
+    session.setMaxInactiveInterval(this.defaultMaxInactiveInterval);
+    return session;
+  }
+
+  @Override
+  public void save(MapSession session) {
+    // the id changes when the user logs in
+    if (!session.getId().equals(session.getOriginalId())) this.sessions.invalidate(session.getOriginalId());
+    var stored = new MapSession(session);
+    for (var name : session.getAttributeNames())
+      stored.setAttribute(name, this.converter.serialize(session.getAttribute(name)));
+    this.sessions.put(session.getId(), stored);
+  }
+
+  @Override
+  public MapSession findById(String id) {
+    var stored = this.sessions.getIfPresent(id);
+    if (stored == null) return null;
+    if (stored.isExpired()) {
+      this.sessions.invalidate(id);
+      return null;
+    }
+    var session = new MapSession(stored);
+    for (var name : stored.getAttributeNames())
+      session.setAttribute(name, this.converter.deserialize(stored.getAttribute(name)));
+    return session;
+  }
+
+  @Override
+  public void deleteById(String id) {
+    this.sessions.invalidate(id);
+  }
+
+  // an entry lasts until its session would expire. a negative max inactive interval means never
+  private static Duration lifetime(MapSession session) {
+    if (session.getMaxInactiveInterval().isNegative()) return Duration.ofNanos(Long.MAX_VALUE);
+    var expiresAt = session.getLastAccessedTime().plus(session.getMaxInactiveInterval());
+    return Duration.between(Instant.now(), expiresAt);
+  }
+}
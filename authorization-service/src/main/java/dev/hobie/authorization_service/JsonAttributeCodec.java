@@ -0,0 +1,42 @@
+package dev.hobie.authorization_service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Map;
+import org.springframework.security.jackson2.SecurityJackson2Modules;
+import org.springframework.security.oauth2.server.authorization.jackson2.OAuth2AuthorizationServerJackson2Module;
+
+// the polymorphic JSON that JdbcOAuth2AuthorizationService writes by default
+public class JsonAttributeCodec implements AttributeCodec {
+
+  static final TypeReference<Map<String, Object>> ATTRIBUTES = new TypeReference<>() {};
+
+  private final ObjectMapper objectMapper = configure(new ObjectMapper());
+
+  // the same modules JdbcOAuth2AuthorizationService registers, so that we read what it wrote
+  static ObjectMapper configure(ObjectMapper objectMapper) {
+    var classLoader = JsonAttributeCodec.class.getClassLoader();
+    objectMapper.registerModules(SecurityJackson2Modules.getModules(classLoader));
+    objectMapper.registerModule(new OAuth2AuthorizationServerJackson2Module());
+    return objectMapper;
+  }
+
+  @Override
+  public byte[] encode(Map<String, Object> attributes) {
+    try {
+      return this.objectMapper.writeValueAsBytes(attributes);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("there's been an exception", e);
+    }
+  }
+
+  @Override
+  public Map<String, Object> decode(byte[] encoded) {
+    try {
+      return this.objectMapper.readValue(encoded, ATTRIBUTES);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("there's been an exception", e);
+    }
+  }
+}
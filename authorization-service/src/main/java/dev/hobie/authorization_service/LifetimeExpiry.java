@@ -0,0 +1,37 @@
+package dev.hobie.authorization_service;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+// gives each cache entry a lifetime worked out from its value whenever it's written, and leaves it
+// alone when it's read. a negative lifetime expires the entry straight away.
+class LifetimeExpiry<K, V> implements Expiry<K, V> {
+
+  private final Function<? super V, Duration> lifetime;
+
+  LifetimeExpiry(Function<? super V, Duration> lifetime) {
+    this.lifetime = lifetime;
+  }
+
+  // a value lives for the time to live, its absence for the negative time to live
+  static <K, V> LifetimeExpiry<K, Optional<V>> negativeAware(Duration timeToLive, Duration negativeTimeToLive) {
+    return new LifetimeExpiry<>(value -> value.isPresent() ? timeToLive : negativeTimeToLive);
+  }
+
+  @Override
+  public long expireAfterCreate(K key, V value, long currentTime) {
+    return Math.max(0, this.lifetime.apply(value).toNanos());
+  }
+
+  @Override
+  public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+    return expireAfterCreate(key, value, currentTime);
+  }
+
+  @Override
+  public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+    return currentDuration;
+  }
+}
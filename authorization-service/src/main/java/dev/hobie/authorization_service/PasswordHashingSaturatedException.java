@@ -0,0 +1,17 @@
+package dev.hobie.authorization_service;
+
+import java.time.Duration;
+import lombok.Getter;
+
+// thrown by BoundedPasswordEncoder when it has no room for another password, and turned into a 503
+// by PasswordHashingSaturatedFilter
+@Getter
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public PasswordHashingSaturatedException(Duration retryAfter) {
+    super("every password hashing thread is busy and the queue is full");
+    this.retryAfter = retryAfter;
+  }
+}
@@ -0,0 +1,38 @@
+package dev.hobie.authorization_service;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// answers a request whose password couldn't be hashed for want of room with 503 and a Retry-After
+// header. the exception escapes the Spring Security filters untouched, since it isn't an
+// AuthenticationException, so this sits in front of all of them.
+class PasswordHashingSaturatedFilter extends OncePerRequestFilter {
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    try {
+      filterChain.doFilter(request, response);
+    } catch (ServletException | RuntimeException e) {
+      var saturated = saturated(e);
+      if (saturated == null || response.isCommitted()) throw e;
+      var seconds = Math.max(1, (saturated.getRetryAfter().toMillis() + 999) / 1000);
+      response.resetBuffer();
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    }
+  }
+
+  private static PasswordHashingSaturatedException saturated(Throwable throwable) {
+    for (var cause = throwable; cause != null; cause = cause.getCause())
+      if (cause instanceof PasswordHashingSaturatedException saturated) return saturated;
+    return null;
+  }
+}
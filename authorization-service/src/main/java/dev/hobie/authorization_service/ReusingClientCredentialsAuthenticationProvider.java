@@ -0,0 +1,119 @@
+package dev.hobie.authorization_service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2AccessTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientCredentialsAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+// answers a client_credentials token request from a client with the REUSE_ACCESS_TOKENS setting
+// with the token it was last issued for the same scopes, as long as at least the minimum remaining
+// fraction of that token's lifetime is left and it hasn't been revoked. anything else, and the
+// first request for a token, goes to the provider that issues tokens.
+class ReusingClientCredentialsAuthenticationProvider implements AuthenticationProvider {
+
+  private record Key(String registeredClientId, Set<String> scopes) {}
+
+  private final AuthenticationProvider delegate;
+
+  private final OAuth2AuthorizationService authorizationService;
+
+  private final double minimumRemaining;
+
+  private final Cache<Key, OAuth2AccessToken> tokens;
+
+  ReusingClientCredentialsAuthenticationProvider(
+      AuthenticationProvider delegate,
+      OAuth2AuthorizationService authorizationService,
+      double minimumRemaining,
+      long maximumSize,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.authorizationService = authorizationService;
+    this.minimumRemaining = minimumRemaining;
+    this.tokens = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new LifetimeExpiry<Key, OAuth2AccessToken>(token -> reusableFor(token, minimumRemaining)))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, this.tokens, "oauth2.client-credentials-tokens");
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication) {
+    var tokenRequest = (OAuth2ClientCredentialsAuthenticationToken) authentication;
+    if (!(tokenRequest.getPrincipal() instanceof OAuth2ClientAuthenticationToken clientPrincipal)
+        || !clientPrincipal.isAuthenticated()
+        || !reuses(clientPrincipal.getRegisteredClient(), tokenRequest.getScopes()))
+      return this.delegate.authenticate(authentication);
+
+    var client = clientPrincipal.getRegisteredClient();
+    var key = new Key(client.getId(), new TreeSet<>(tokenRequest.getScopes()));
+    var reusable = this.tokens.getIfPresent(key);
+    if (reusable != null && isReusable(reusable))
+      return new OAuth2AccessTokenAuthenticationToken(client, clientPrincipal, reissued(reusable));
+
+    var issued = this.delegate.authenticate(authentication);
+    if (issued instanceof OAuth2AccessTokenAuthenticationToken accessTokenAuthentication)
+      this.tokens.put(key, accessTokenAuthentication.getAccessToken());
+    return issued;
+  }
+
+  @Override
+  public boolean supports(Class<?> authentication) {
+    return OAuth2ClientCredentialsAuthenticationToken.class.isAssignableFrom(authentication);
+  }
+
+  // the delegate validates the request; only a request it would have granted can be reused
+  private static boolean reuses(RegisteredClient client, Set<String> scopes) {
+    return client != null
+        && ClientCredentialsTokenSettings.isEnabled(client, ClientCredentialsTokenSettings.REUSE_ACCESS_TOKENS)
+        && client.getAuthorizationGrantTypes().contains(AuthorizationGrantType.CLIENT_CREDENTIALS)
+        && client.getScopes().containsAll(scopes);
+  }
+
+  private boolean isReusable(OAuth2AccessToken token) {
+    if (remaining(token, Instant.now()) < this.minimumRemaining) return false;
+    // served from memory by the CachingOAuth2AuthorizationService, so a token revoked on another
+    // node can be reused until its entry expires there
+    var authorization =
+        this.authorizationService.findByToken(token.getTokenValue(), OAuth2TokenType.ACCESS_TOKEN);
+    return authorization != null
+        && authorization.getAccessToken() != null
+        && authorization.getAccessToken().isActive();
+  }
+
+  // the token endpoint works out expires_in from the issue time, so this tells the client how long
+  // the token actually has left
+  private static OAuth2AccessToken reissued(OAuth2AccessToken token) {
+    return new OAuth2AccessToken(
+        token.getTokenType(), token.getTokenValue(), Instant.now(), token.getExpiresAt(), token.getScopes());
+  }
+
+  // the fraction of the token's lifetime that's left
+  private static double remaining(OAuth2AccessToken token, Instant now) {
+    var lifetime = Duration.between(token.getIssuedAt(), token.getExpiresAt());
+    return lifetime.isZero() ? 0 : (double) Duration.between(now, token.getExpiresAt()).toNanos() / lifetime.toNanos();
+  }
+
+  // an entry lives until the token has no more than the minimum remaining fraction of its lifetime left
+  private static Duration reusableFor(OAuth2AccessToken token, double minimumRemaining) {
+    if (token.getIssuedAt() == null || token.getExpiresAt() == null) return Duration.ZERO;
+    var lifetime = Duration.between(token.getIssuedAt(), token.getExpiresAt());
+    var reusableUntil = token.getExpiresAt().minusNanos((long) (lifetime.toNanos() * minimumRemaining));
+    return Duration.between(Instant.now(), reusableUntil);
+  }
+}
@@ -1,16 +1,39 @@
 package dev.hobie.authorization_service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class SecurityConfiguration {
 
   // <1>
   @Bean
-  PasswordEncoder passwordEncoder() {
-    return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+  BoundedPasswordEncoder passwordEncoder(
+      MeterRegistry meterRegistry,
+      @Value("${passwords.hashing.concurrency}") int concurrency,
+      @Value("${passwords.hashing.queue-depth}") int queueDepth,
+      @Value("${passwords.hashing.background-concurrency}") int backgroundConcurrency,
+      @Value("${passwords.hashing.retry-after}") Duration retryAfter) {
+    return new BoundedPasswordEncoder( // <2>
+        PasswordEncoderFactories.createDelegatingPasswordEncoder(),
+        concurrency,
+        queueDepth,
+        backgroundConcurrency,
+        retryAfter,
+        meterRegistry);
+  }
+
+  // <3>
+  @Bean
+  FilterRegistrationBean<PasswordHashingSaturatedFilter> passwordHashingSaturatedFilter() {
+    var registration = new FilterRegistrationBean<>(new PasswordHashingSaturatedFilter());
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
   }
 }
@@ -0,0 +1,74 @@
+package dev.hobie.authorization_service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import java.util.Set;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.GenericConverter;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.security.web.savedrequest.DefaultSavedRequest;
+
+// turns session attributes into the bytes a session store keeps, in spring_session_attributes or in
+// redis, and back. the attributes the login flow keeps in the session, the security context, the
+// request that was interrupted by the login page and the csrf token, are written as Smile by a
+// SmileAttributeCodec, in a little over a third of the bytes Java serialization takes, and read
+// without the cost of deserializing a graph of Serializable classes. anything else, or everything
+// if compact is off, is serialized as before, and bytes written before this are still read: a Java
+// serialization stream never starts with Smile's header.
+class SessionAttributeConverter implements GenericConverter, RedisSerializer<Object> {
+
+  private static final Set<Class<?>> COMPACT_TYPES =
+      Set.of(SecurityContextImpl.class, DefaultSavedRequest.class, DefaultCsrfToken.class, String.class);
+
+  private static final JavaType OBJECT = TypeFactory.defaultInstance().constructType(Object.class);
+
+  private static final TypeDescriptor BYTES = TypeDescriptor.valueOf(byte[].class);
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final SmileAttributeCodec codec = new SmileAttributeCodec();
+
+  private final boolean compact;
+
+  private final SerializingConverter serializer = new SerializingConverter();
+
+  private final DeserializingConverter deserializer =
+      new DeserializingConverter(SessionAttributeConverter.class.getClassLoader());
+
+  SessionAttributeConverter(boolean compact) {
+    this.compact = compact;
+  }
+
+  @Override
+  public Set<ConvertiblePair> getConvertibleTypes() {
+    return Set.of(new ConvertiblePair(Object.class, byte[].class), new ConvertiblePair(byte[].class, Object.class));
+  }
+
+  @Override
+  public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+    if (source == null) return null;
+    if (BYTES.equals(targetType)) return serialize(source);
+    return deserialize((byte[]) source);
+  }
+
+  // redis keeps a removed attribute as an empty value
+  @Override
+  public byte[] serialize(Object value) {
+    if (value == null) return EMPTY;
+    return this.compact && COMPACT_TYPES.contains(value.getClass())
+        ? this.codec.encodeValue(value)
+        : this.serializer.convert(value);
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    if (bytes == null || bytes.length == 0) return null;
+    return SmileAttributeCodec.isSmile(bytes)
+        ? this.codec.decodeValue(bytes, OBJECT)
+        : this.deserializer.convert(bytes);
+  }
+}
@@ -0,0 +1,106 @@
+package dev.hobie.authorization_service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.data.redis.RedisSessionRepository;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableSpringHttpSession
+public class SessionsConfiguration {
+
+  // only writes the session row when something other than the last access time has changed, or the
+  // last access time has moved on by at least the threshold. every request sets it, so otherwise
+  // every request is an update. the expiry time lags by up to the threshold, which should be a small
+  // part of the session timeout
+  private static final String UPDATE_SESSION_SQL = """
+      update %%TABLE_NAME%% s
+      set session_id = v.session_id, last_access_time = v.last_access_time,
+          max_inactive_interval = v.max_inactive_interval, expiry_time = v.expiry_time,
+          principal_name = v.principal_name
+      from (select cast(? as character(36)) as session_id, cast(? as bigint) as last_access_time,
+                   cast(? as integer) as max_inactive_interval, cast(? as bigint) as expiry_time,
+                   cast(? as character varying(100)) as principal_name, cast(? as character(36)) as primary_id) v
+      where s.primary_id = v.primary_id
+        and (s.session_id <> v.session_id or s.max_inactive_interval <> v.max_inactive_interval
+             or s.principal_name is distinct from v.principal_name
+             or v.last_access_time - s.last_access_time >= %d)
+      """;
+
+  @Bean
+  SessionAttributeConverter sessionAttributeConverter(@Value("${sessions.compact}") boolean compact) {
+    return new SessionAttributeConverter(compact);
+  }
+
+  // sessions.store says where http sessions live: "jdbc", in spring_session, "redis", or "memory",
+  // on this node only. all three write attributes with the same SessionAttributeConverter and drop a
+  // session once it's gone unused for sessions.timeout
+  @Bean
+  SessionRepository<?> sessionRepository(
+      @Value("${sessions.store}") String store,
+      @Value("${sessions.timeout}") Duration timeout,
+      @Value("${sessions.jdbc.last-access-threshold}") Duration lastAccessThreshold,
+      @Value("${sessions.memory.maximum-size}") long maximumSize,
+      SessionAttributeConverter converter,
+      JdbcOperations jdbcOperations,
+      PlatformTransactionManager transactionManager,
+      ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+      MeterRegistry meterRegistry) {
+    return switch (store) {
+      case "jdbc" -> jdbcSessionRepository(jdbcOperations, transactionManager, converter, timeout, lastAccessThreshold);
+      case "redis" -> redisSessionRepository(redisConnectionFactory.getObject(), converter, timeout);
+      case "memory" -> new InMemorySessionRepository(converter, timeout, maximumSize, meterRegistry);
+      default -> throw new IllegalArgumentException("unknown session store " + store);
+    };
+  }
+
+  static JdbcIndexedSessionRepository jdbcSessionRepository(
+      JdbcOperations jdbcOperations,
+      PlatformTransactionManager transactionManager,
+      SessionAttributeConverter converter,
+      Duration timeout,
+      Duration lastAccessThreshold) {
+    var transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    var repository = new JdbcIndexedSessionRepository(jdbcOperations, transactionTemplate);
+    var conversionService = new GenericConversionService();
+    conversionService.addConverter(converter);
+    repository.setConversionService(conversionService);
+    repository.setUpdateSessionQuery(UPDATE_SESSION_SQL.formatted(lastAccessThreshold.toMillis()));
+    repository.setDefaultMaxInactiveInterval(timeout);
+    // expired sessions are deleted by the AuthorizationReaper, a batch at a time, instead of all at
+    // once
+    repository.setCleanupCron(Scheduled.CRON_DISABLED);
+    return repository;
+  }
+
+  // a hash per session, which redis expires itself
+  static RedisSessionRepository redisSessionRepository(
+      RedisConnectionFactory connectionFactory, SessionAttributeConverter converter, Duration timeout) {
+    var redisTemplate = new RedisTemplate<String, Object>();
+    redisTemplate.setConnectionFactory(connectionFactory);
+    redisTemplate.setKeySerializer(RedisSerializer.string());
+    redisTemplate.setHashKeySerializer(RedisSerializer.string());
+    redisTemplate.setValueSerializer(converter);
+    redisTemplate.setHashValueSerializer(converter);
+    redisTemplate.afterPropertiesSet();
+    var repository = new RedisSessionRepository(redisTemplate);
+    repository.setDefaultMaxInactiveInterval(timeout);
+    return repository;
+  }
+}
@@ -0,0 +1,240 @@
+package dev.hobie.authorization_service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// the same data as JsonAttributeCodec, in binary Smile, with the class names that Jackson writes as
+// type ids replaced by their position in TYPE_IDS. anything that isn't Smile is read as legacy JSON.
+public class SmileAttributeCodec implements AttributeCodec {
+
+  // stored rows refer to these by position: only ever append to this list
+  static final List<String> TYPE_IDS = List.of(
+      "java.util.Collections$UnmodifiableMap",
+      "java.util.Collections$UnmodifiableSet",
+      "java.util.Collections$UnmodifiableRandomAccessList",
+      "java.util.Collections$UnmodifiableCollection",
+      "java.util.Collections$EmptyMap",
+      "java.util.Collections$EmptySet",
+      "java.util.Collections$EmptyList",
+      "java.util.Collections$SingletonList",
+      "java.util.Arrays$ArrayList",
+      "java.util.ArrayList",
+      "java.util.LinkedList",
+      "java.util.HashMap",
+      "java.util.LinkedHashMap",
+      "java.util.TreeMap",
+      "java.util.HashSet",
+      "java.util.LinkedHashSet",
+      "java.util.TreeSet",
+      "java.lang.Long",
+      "java.lang.Integer",
+      "java.lang.Double",
+      "java.lang.Boolean",
+      "java.time.Instant",
+      "java.time.Duration",
+      "java.net.URL",
+      "java.util.Date",
+      "org.springframework.security.authentication.UsernamePasswordAuthenticationToken",
+      "org.springframework.security.authentication.AnonymousAuthenticationToken",
+      "org.springframework.security.authentication.RememberMeAuthenticationToken",
+      "org.springframework.security.core.authority.SimpleGrantedAuthority",
+      "org.springframework.security.core.userdetails.User",
+      "org.springframework.security.core.context.SecurityContextImpl",
+      "org.springframework.security.web.authentication.WebAuthenticationDetails",
+      "org.springframework.security.web.savedrequest.DefaultSavedRequest",
+      "org.springframework.security.web.savedrequest.SavedCookie",
+      "org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest",
+      "org.springframework.security.oauth2.core.user.DefaultOAuth2User",
+      "org.springframework.security.oauth2.core.user.OAuth2UserAuthority",
+      "org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser",
+      "org.springframework.security.oauth2.core.oidc.user.OidcUserAuthority",
+      "org.springframework.security.oauth2.core.oidc.OidcIdToken",
+      "org.springframework.security.oauth2.core.oidc.OidcUserInfo",
+      "org.springframework.security.oauth2.jose.jws.SignatureAlgorithm",
+      "org.springframework.security.oauth2.jose.jws.MacAlgorithm",
+      "org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat",
+      "org.springframework.security.web.csrf.DefaultCsrfToken");
+
+  // starts every type id written by position. a string that really starts with it is escaped by
+  // writing the marker twice
+  private static final char MARKER = '\u0000';
+
+  private static final Map<String, String> ENCODED_TYPE_IDS = new HashMap<>();
+
+  static {
+    for (var position = 0; position < TYPE_IDS.size(); position++)
+      ENCODED_TYPE_IDS.put(TYPE_IDS.get(position), MARKER + Integer.toString(position, 36));
+  }
+
+  private final ObjectMapper objectMapper = JsonAttributeCodec.configure(new ObjectMapper(
+      SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build()));
+
+  // deserializers like UsernamePasswordAuthenticationTokenDeserializer re-read parts of the document
+  // as JSON text with the parser's codec, which can't be the Smile mapper
+  private final ObjectMapper textObjectMapper = JsonAttributeCodec.configure(new ObjectMapper());
+
+  private final AttributeCodec legacy = new JsonAttributeCodec();
+
+  @Override
+  public byte[] encode(Map<String, Object> attributes) {
+    return encodeValue(attributes);
+  }
+
+  @Override
+  public Map<String, Object> decode(byte[] encoded) {
+    if (!isSmile(encoded)) return this.legacy.decode(encoded);
+    return decodeValue(encoded, this.objectMapper.getTypeFactory().constructType(JsonAttributeCodec.ATTRIBUTES));
+  }
+
+  // a single value, with its type id if its type isn't final
+  byte[] encodeValue(Object value) {
+    var out = new ByteArrayOutputStream();
+    try (var generator = new TypeIdGenerator(this.objectMapper.getFactory().createGenerator(out))) {
+      this.objectMapper.writeValue(generator, value);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("there's been an exception", e);
+    }
+    return out.toByteArray();
+  }
+
+  <T> T decodeValue(byte[] encoded, JavaType type) {
+    try (var parser = new TypeIdParser(this.objectMapper.getFactory().createParser(encoded))) {
+      parser.setCodec(this.textObjectMapper);
+      return this.objectMapper.readValue(parser, type);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("there's been an exception", e);
+    }
+  }
+
+  // every Smile document starts with the header ":)\n"
+  static boolean isSmile(byte[] encoded) {
+    return encoded.length >= 3 && encoded[0] == ':' && encoded[1] == ')' && encoded[2] == '\n';
+  }
+
+  private static String escape(String text) {
+    return !text.isEmpty() && text.charAt(0) == MARKER ? MARKER + text : text;
+  }
+
+  private static String unescape(String text) {
+    if (text == null || text.isEmpty() || text.charAt(0) != MARKER) return text;
+    if (text.length() > 1 && text.charAt(1) == MARKER) return text.substring(1);
+    var position = Integer.parseInt(text.substring(1), 36);
+    if (position >= TYPE_IDS.size())
+      throw new IllegalStateException("there's no type id at position " + position);
+    return TYPE_IDS.get(position);
+  }
+
+  private static class TypeIdGenerator extends JsonGeneratorDelegate {
+
+    private boolean writingTypeId;
+
+    TypeIdGenerator(JsonGenerator delegate) {
+      super(delegate, false);
+    }
+
+    // the inherited implementation writes the type id with writeString(), below
+    @Override
+    public WritableTypeId writeTypePrefix(WritableTypeId typeId) throws IOException {
+      this.writingTypeId = true;
+      try {
+        return super.writeTypePrefix(typeId);
+      } finally {
+        this.writingTypeId = false;
+      }
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+      if (text != null && this.writingTypeId) {
+        this.writingTypeId = false;
+        super.writeString(ENCODED_TYPE_IDS.getOrDefault(text, text));
+      } else super.writeString(text == null ? null : escape(text));
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int length) throws IOException {
+      if (length > 0 && text[offset] == MARKER) writeString(new String(text, offset, length));
+      else super.writeString(text, offset, length);
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+      writeString(text.getValue());
+    }
+  }
+
+  private static class TypeIdParser extends JsonParserDelegate {
+
+    TypeIdParser(JsonParser delegate) {
+      super(delegate);
+    }
+
+    private boolean isString() {
+      return hasToken(JsonToken.VALUE_STRING);
+    }
+
+    @Override
+    public String getText() throws IOException {
+      var text = super.getText();
+      return isString() ? unescape(text) : text;
+    }
+
+    @Override
+    public int getText(Writer writer) throws IOException {
+      if (!isString()) return super.getText(writer);
+      var text = getText();
+      writer.write(text);
+      return text.length();
+    }
+
+    @Override
+    public String getValueAsString() throws IOException {
+      return isString() ? getText() : super.getValueAsString();
+    }
+
+    @Override
+    public String getValueAsString(String defaultValue) throws IOException {
+      return isString() ? getText() : super.getValueAsString(defaultValue);
+    }
+
+    @Override
+    public String nextTextValue() throws IOException {
+      return nextToken() == JsonToken.VALUE_STRING ? getText() : null;
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+      return !isString() && super.hasTextCharacters();
+    }
+
+    @Override
+    public char[] getTextCharacters() throws IOException {
+      return isString() ? getText().toCharArray() : super.getTextCharacters();
+    }
+
+    @Override
+    public int getTextLength() throws IOException {
+      return isString() ? getText().length() : super.getTextLength();
+    }
+
+    @Override
+    public int getTextOffset() throws IOException {
+      return isString() ? 0 : super.getTextOffset();
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package dev.hobie.authorization_service;
+
+import java.time.Instant;
+import java.util.HashSet;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat;
+import org.springframework.util.StringUtils;
+
+// a client_credentials authorization holds nothing but a self-contained access token, which
+// resource servers check against the JWKS on their own. for clients with the STATELESS setting the
+// authorization isn't stored at all: the ClientCredentialsTokenLog gets a short entry instead, in
+// the background. a token that isn't in oauth2_authorization is rebuilt from the JWT itself, once
+// its signature checks out against our keys, so introspection and revocation work on every node,
+// even before its entry has been written. the entry only adds whether it's been revoked, and
+// revocations are written straight away, since the token stays valid until they are.
+class StatelessClientCredentialsAuthorizationService implements OAuth2AuthorizationService, AutoCloseable {
+
+  private static final String SELECT_ENTRY_SQL = """
+      select authorization_id, revoked_at
+      from oauth2_client_credentials_token
+      where token_digest = ?
+      """;
+
+  private final OAuth2AuthorizationService delegate;
+
+  private final RegisteredClientRepository registeredClientRepository;
+
+  private final JdbcOperations jdbc;
+
+  private final ClientCredentialsTokenLog tokenLog;
+
+  private final JwtDecoder jwtDecoder;
+
+  private record StoredEntry(String authorizationId, boolean revoked) {}
+
+  StatelessClientCredentialsAuthorizationService(
+      OAuth2AuthorizationService delegate,
+      RegisteredClientRepository registeredClientRepository,
+      JdbcOperations jdbc,
+      ClientCredentialsTokenLog tokenLog,
+      JwtDecoder jwtDecoder) {
+    this.delegate = delegate;
+    this.registeredClientRepository = registeredClientRepository;
+    this.jdbc = jdbc;
+    this.tokenLog = tokenLog;
+    this.jwtDecoder = jwtDecoder;
+  }
+
+  @Override
+  public void save(OAuth2Authorization authorization) {
+    if (!isStateless(authorization)) this.delegate.save(authorization);
+    else if (authorization.getAccessToken().isInvalidated()) this.tokenLog.writeNow(entry(authorization));
+    else this.tokenLog.append(entry(authorization));
+  }
+
+  @Override
+  public void remove(OAuth2Authorization authorization) {
+    if (isStateless(authorization)) this.tokenLog.writeNow(entry(revoked(authorization)));
+    else this.delegate.remove(authorization);
+  }
+
+  @Override
+  public OAuth2Authorization findById(String id) {
+    return this.delegate.findById(id);
+  }
+
+  @Override
+  public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+    var authorization = this.delegate.findByToken(token, tokenType);
+    if (authorization != null || !(tokenType == null || OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)))
+      return authorization;
+    // opaque tokens, and JWTs that aren't ours, are never stateless
+    Jwt jwt;
+    try {
+      jwt = this.jwtDecoder.decode(token);
+    } catch (JwtException e) {
+      return null;
+    }
+    var client = jwt.getSubject() == null ? null : this.registeredClientRepository.findByClientId(jwt.getSubject());
+    if (client == null || !isStateless(client) || jwt.getIssuedAt() == null || jwt.getExpiresAt() == null)
+      return null;
+    var found = this.jdbc.query(
+        SELECT_ENTRY_SQL,
+        (rs, rowNum) -> new StoredEntry(rs.getString("authorization_id"), rs.getTimestamp("revoked_at") != null),
+        DigestJdbcOAuth2AuthorizationService.digest(token));
+    return authorization(client, jwt, found.isEmpty() ? null : found.get(0));
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (this.delegate instanceof AutoCloseable closeable) closeable.close();
+  }
+
+  private boolean isStateless(OAuth2Authorization authorization) {
+    if (!AuthorizationGrantType.CLIENT_CREDENTIALS.equals(authorization.getAuthorizationGrantType())
+        || authorization.getRefreshToken() != null
+        || authorization.getAccessToken() == null
+        || authorization.getAccessToken().getToken().getExpiresAt() == null) return false;
+    var client = this.registeredClientRepository.findById(authorization.getRegisteredClientId());
+    return client != null && isStateless(client);
+  }
+
+  private static boolean isStateless(RegisteredClient client) {
+    return ClientCredentialsTokenSettings.isEnabled(client, ClientCredentialsTokenSettings.STATELESS)
+        && OAuth2TokenFormat.SELF_CONTAINED.equals(client.getTokenSettings().getAccessTokenFormat());
+  }
+
+  private static OAuth2Authorization revoked(OAuth2Authorization authorization) {
+    return OAuth2Authorization.from(authorization)
+        .token(
+            authorization.getAccessToken().getToken(),
+            metadata -> metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .build();
+  }
+
+  private static ClientCredentialsTokenLog.Entry entry(OAuth2Authorization authorization) {
+    var accessToken = authorization.getAccessToken();
+    var token = accessToken.getToken();
+    return new ClientCredentialsTokenLog.Entry(
+        DigestJdbcOAuth2AuthorizationService.digest(token.getTokenValue()),
+        authorization.getId(),
+        authorization.getRegisteredClientId(),
+        authorization.getPrincipalName(),
+        StringUtils.collectionToCommaDelimitedString(token.getScopes()),
+        token.getIssuedAt(),
+        token.getExpiresAt(),
+        accessToken.isInvalidated() ? Instant.now() : null);
+  }
+
+  // the token and its claims are the JWT the client presented, so only its digest is ever stored.
+  // a token whose entry hasn't been written yet, on this node or another, gets the jti as its id
+  private static OAuth2Authorization authorization(RegisteredClient client, Jwt jwt, StoredEntry entry) {
+    var scopes = jwt.hasClaim(OAuth2ParameterNames.SCOPE)
+        ? new HashSet<>(jwt.getClaimAsStringList(OAuth2ParameterNames.SCOPE))
+        : new HashSet<String>();
+    var token = new OAuth2AccessToken(
+        OAuth2AccessToken.TokenType.BEARER, jwt.getTokenValue(), jwt.getIssuedAt(), jwt.getExpiresAt(), scopes);
+    var id = entry != null ? entry.authorizationId() : jwt.getId() != null ? jwt.getId() : jwt.getTokenValue();
+    var revoked = entry != null && entry.revoked();
+    return OAuth2Authorization.withRegisteredClient(client)
+        .id(id)
+        .principalName(jwt.getSubject())
+        .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+        .authorizedScopes(scopes)
+        .token(token, metadata -> {
+          metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, jwt.getClaims());
+          metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, revoked);
+        })
+        .build();
+  }
+}
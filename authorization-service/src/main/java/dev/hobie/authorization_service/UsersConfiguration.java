@@ -1,7 +1,10 @@
 package dev.hobie.authorization_service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.util.Map;
 import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,8 +17,13 @@ import org.springframework.security.provisioning.UserDetailsManager;
 public class UsersConfiguration {
 
   @Bean
-  JdbcUserDetailsManager jdbcUserDetailsManager(DataSource dataSource) {
-    return new JdbcUserDetailsManager(dataSource);
+  CachingUserDetailsManager jdbcUserDetailsManager(
+      DataSource dataSource,
+      MeterRegistry meterRegistry,
+      @Value("${users.cache.time-to-live}") Duration timeToLive,
+      @Value("${users.cache.maximum-size}") long maximumSize) {
+    return new CachingUserDetailsManager(
+        new JdbcUserDetailsManager(dataSource), timeToLive, maximumSize, meterRegistry);
   }
 
   @Bean
@@ -0,0 +1,99 @@
+package dev.hobie.authorization_service;
+
+import static org.springframework.security.config.Customizer.withDefaults;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.authentication.ClientSecretAuthenticationProvider;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientCredentialsAuthenticationProvider;
+import org.springframework.security.oauth2.server.authorization.config.annotation.web.configuration.OAuth2AuthorizationServerConfiguration;
+import org.springframework.security.oauth2.server.authorization.config.annotation.web.configurers.OAuth2AuthorizationServerConfigurer;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
+import org.springframework.security.web.util.matcher.MediaTypeRequestMatcher;
+
+// the same two filter chains that Spring Boot would otherwise configure for us, with one change:
+// client secrets may be checked with a CachingClientSecretEncoder instead of the PasswordEncoder,
+// and client_credentials tokens may be reused. there's a third, for the provisioning endpoints
+@Configuration
+public class WebSecurityConfiguration {
+
+  @Bean
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  SecurityFilterChain authorizationServerSecurityFilterChain(
+      HttpSecurity http,
+      PasswordEncoder passwordEncoder,
+      OAuth2AuthorizationService authorizationService,
+      MeterRegistry meterRegistry,
+      @Value("${clients.secret-cache.enabled}") boolean secretCacheEnabled,
+      @Value("${clients.secret-cache.time-to-live}") Duration timeToLive,
+      @Value("${clients.secret-cache.maximum-size}") long maximumSize,
+      @Value("${clients.token-reuse.minimum-remaining}") double minimumRemaining,
+      @Value("${clients.token-reuse.maximum-size}") long reusableTokens)
+      throws Exception {
+    OAuth2AuthorizationServerConfiguration.applyDefaultSecurity(http);
+    var clientSecretEncoder = secretCacheEnabled
+        ? new CachingClientSecretEncoder(passwordEncoder, timeToLive, maximumSize, meterRegistry)
+        : passwordEncoder;
+    http.getConfigurer(OAuth2AuthorizationServerConfigurer.class)
+        .oidc(withDefaults())
+        .clientAuthentication(clientAuthentication -> clientAuthentication.authenticationProviders(
+            providers -> providers.forEach(provider -> {
+              if (provider instanceof ClientSecretAuthenticationProvider clientSecretProvider)
+                clientSecretProvider.setPasswordEncoder(clientSecretEncoder);
+            })))
+        .tokenEndpoint(tokenEndpoint -> tokenEndpoint.authenticationProviders(
+            providers -> providers.replaceAll(provider -> provider instanceof OAuth2ClientCredentialsAuthenticationProvider
+                ? new ReusingClientCredentialsAuthenticationProvider(
+                    provider, authorizationService, minimumRemaining, reusableTokens, meterRegistry)
+                : provider)));
+    http.oauth2ResourceServer(resourceServer -> resourceServer.jwt(withDefaults()));
+    var html = new MediaTypeRequestMatcher(MediaType.TEXT_HTML);
+    html.setIgnoredMediaTypes(Set.of(MediaType.ALL));
+    http.exceptionHandling(exceptions -> exceptions.defaultAuthenticationEntryPointFor(
+        new LoginUrlAuthenticationEntryPoint("/login"), html));
+    return http.build();
+  }
+
+  // bulk imports are made by scripts rather than browsers: http basic, no session, no csrf token.
+  // failures set the status rather than send an error, since the error page would be served by the
+  // standard chain below, which answers an anonymous request with a redirect to the login form
+  @Bean
+  @Order(SecurityProperties.BASIC_AUTH_ORDER - 1)
+  SecurityFilterChain provisioningSecurityFilterChain(HttpSecurity http) throws Exception {
+    http.securityMatcher("/admin/provisioning/**")
+        .authorizeHttpRequests(authorize -> authorize.anyRequest().hasRole("ADMIN"))
+        .httpBasic(withDefaults())
+        .exceptionHandling(exceptions -> exceptions
+            .authenticationEntryPoint((request, response, exception) -> {
+              response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"provisioning\"");
+              response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            })
+            .accessDeniedHandler((request, response, exception) -> response.setStatus(HttpStatus.FORBIDDEN.value())))
+        .csrf(csrf -> csrf.disable())
+        .sessionManagement(sessions -> sessions.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+    return http.build();
+  }
+
+  @Bean
+  @Order(SecurityProperties.BASIC_AUTH_ORDER)
+  SecurityFilterChain standardSecurityFilterChain(HttpSecurity http) throws Exception {
+    http.authorizeHttpRequests(authorize -> authorize.anyRequest().authenticated())
+        .formLogin(withDefaults());
+    return http.build();
+  }
+}
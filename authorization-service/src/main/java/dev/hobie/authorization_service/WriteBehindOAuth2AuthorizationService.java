@@ -0,0 +1,385 @@
+package dev.hobie.authorization_service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+// queues saves and removals and writes them on a thread of its own, a batch of upserts and a batch
+// of deletes at a time, every flush interval or as soon as a batch's worth is waiting. only the
+// latest change to each authorization is kept, so an authorization saved at /oauth2/authorize and
+// again at /oauth2/token before the next flush is written once. lookups see the queued changes
+// before the delegate's rows. a change that can't be written stays queued, and visible, and is
+// tried again after the flush interval. when capacity changes are waiting, callers wait for the
+// writer, and close() writes whatever's still queued. until a change is written, other nodes don't
+// see it.
+@Slf4j
+public class WriteBehindOAuth2AuthorizationService implements OAuth2AuthorizationService, AutoCloseable {
+
+  private static final String UPSERT_AUTHORIZATION_SQL = """
+      insert into oauth2_authorization (id, registered_client_id, principal_name, authorization_grant_type,
+          authorized_scopes, attributes, state, authorization_code_value, authorization_code_issued_at,
+          authorization_code_expires_at, authorization_code_metadata, access_token_value,
+          access_token_issued_at, access_token_expires_at, access_token_metadata, access_token_type,
+          access_token_scopes, oidc_id_token_value, oidc_id_token_issued_at, oidc_id_token_expires_at,
+          oidc_id_token_metadata, refresh_token_value, refresh_token_issued_at, refresh_token_expires_at,
+          refresh_token_metadata, user_code_value, user_code_issued_at, user_code_expires_at,
+          user_code_metadata, device_code_value, device_code_issued_at, device_code_expires_at,
+          device_code_metadata)
+      values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+      on conflict (id) do update set
+          registered_client_id = excluded.registered_client_id, principal_name = excluded.principal_name,
+          authorization_grant_type = excluded.authorization_grant_type,
+          authorized_scopes = excluded.authorized_scopes, attributes = excluded.attributes,
+          state = excluded.state, authorization_code_value = excluded.authorization_code_value,
+          authorization_code_issued_at = excluded.authorization_code_issued_at,
+          authorization_code_expires_at = excluded.authorization_code_expires_at,
+          authorization_code_metadata = excluded.authorization_code_metadata,
+          access_token_value = excluded.access_token_value,
+          access_token_issued_at = excluded.access_token_issued_at,
+          access_token_expires_at = excluded.access_token_expires_at,
+          access_token_metadata = excluded.access_token_metadata,
+          access_token_type = excluded.access_token_type, access_token_scopes = excluded.access_token_scopes,
+          oidc_id_token_value = excluded.oidc_id_token_value,
+          oidc_id_token_issued_at = excluded.oidc_id_token_issued_at,
+          oidc_id_token_expires_at = excluded.oidc_id_token_expires_at,
+          oidc_id_token_metadata = excluded.oidc_id_token_metadata,
+          refresh_token_value = excluded.refresh_token_value,
+          refresh_token_issued_at = excluded.refresh_token_issued_at,
+          refresh_token_expires_at = excluded.refresh_token_expires_at,
+          refresh_token_metadata = excluded.refresh_token_metadata, user_code_value = excluded.user_code_value,
+          user_code_issued_at = excluded.user_code_issued_at, user_code_expires_at = excluded.user_code_expires_at,
+          user_code_metadata = excluded.user_code_metadata, device_code_value = excluded.device_code_value,
+          device_code_issued_at = excluded.device_code_issued_at,
+          device_code_expires_at = excluded.device_code_expires_at,
+          device_code_metadata = excluded.device_code_metadata
+      """;
+
+  private static final String DELETE_AUTHORIZATION_SQL = "delete from oauth2_authorization where id = ?";
+
+  // the latest change to an authorization: the authorization to save, or to remove
+  private record Change(OAuth2Authorization authorization, boolean removal) {}
+
+  private final OAuth2AuthorizationService delegate;
+
+  private final JdbcOperations jdbc;
+
+  private final Function<OAuth2Authorization, List<SqlParameterValue>> parametersMapper;
+
+  private final int capacity;
+
+  private final int batchSize;
+
+  private final Duration flushInterval;
+
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition batchWaiting = this.lock.newCondition();
+
+  private final Condition spaceAvailable = this.lock.newCondition();
+
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private final LinkedHashMap<String, Change> changes = new LinkedHashMap<>();
+
+  private final Map<String, String> idsByToken = new HashMap<>();
+
+  private final Thread writer;
+
+  private final Timer flushes;
+
+  private final Timer backpressure;
+
+  private final Counter coalesced;
+
+  private final Counter failures;
+
+  private volatile boolean running = true;
+
+  public WriteBehindOAuth2AuthorizationService(
+      OAuth2AuthorizationService delegate,
+      JdbcOperations jdbc,
+      Function<OAuth2Authorization, List<SqlParameterValue>> parametersMapper,
+      int capacity,
+      int batchSize,
+      Duration flushInterval,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.jdbc = jdbc;
+    this.parametersMapper = parametersMapper;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.flushInterval = flushInterval;
+    Gauge.builder("oauth2.authorizations.write-behind.queued", this, service -> service.queued())
+        .description("authorizations with changes waiting to be written")
+        .register(meterRegistry);
+    this.flushes = Timer.builder("oauth2.authorizations.write-behind.flushes")
+        .description("time spent writing a batch of changes")
+        .register(meterRegistry);
+    this.backpressure = Timer.builder("oauth2.authorizations.write-behind.backpressure")
+        .description("time callers spent waiting for room in the queue")
+        .register(meterRegistry);
+    this.coalesced = Counter.builder("oauth2.authorizations.write-behind.coalesced")
+        .description("changes replaced by a later change to the same authorization before they were written")
+        .register(meterRegistry);
+    this.failures = Counter.builder("oauth2.authorizations.write-behind.failures")
+        .description("changes that couldn't be written")
+        .register(meterRegistry);
+    this.writer = new CustomizableThreadFactory("authorization-write-behind-").newThread(this::run);
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  @Override
+  public void save(OAuth2Authorization authorization) {
+    Assert.notNull(authorization, "authorization cannot be null");
+    enqueue(new Change(authorization, false));
+  }
+
+  @Override
+  public void remove(OAuth2Authorization authorization) {
+    Assert.notNull(authorization, "authorization cannot be null");
+    enqueue(new Change(authorization, true));
+  }
+
+  @Override
+  public OAuth2Authorization findById(String id) {
+    Assert.hasText(id, "id cannot be empty");
+    this.lock.lock();
+    try {
+      var change = this.changes.get(id);
+      if (change != null) return change.removal() ? null : change.authorization();
+    } finally {
+      this.lock.unlock();
+    }
+    return this.delegate.findById(id);
+  }
+
+  @Override
+  public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+    Assert.hasText(token, "token cannot be empty");
+    this.lock.lock();
+    try {
+      var id = this.idsByToken.get(token);
+      var change = id != null ? this.changes.get(id) : null;
+      if (change != null && holds(change.authorization(), token, tokenType))
+        return change.removal() ? null : change.authorization();
+    } finally {
+      this.lock.unlock();
+    }
+    var found = this.delegate.findByToken(token, tokenType);
+    if (found == null) return null;
+    // the row may be older than a queued change that no longer holds this token: a refresh token
+    // that's been replaced, say, which mustn't be usable again until the change is written
+    this.lock.lock();
+    try {
+      var change = this.changes.get(found.getId());
+      if (change != null)
+        return !change.removal() && holds(change.authorization(), token, tokenType) ? change.authorization() : null;
+    } finally {
+      this.lock.unlock();
+    }
+    return found;
+  }
+
+  private void enqueue(Change change) {
+    var id = change.authorization().getId();
+    this.lock.lock();
+    try {
+      if (this.running && !this.changes.containsKey(id) && this.changes.size() >= this.capacity) awaitSpace();
+      var previous = this.changes.remove(id);
+      if (previous != null) {
+        this.coalesced.increment();
+        unindex(previous);
+      }
+      this.changes.put(id, change);
+      tokenValues(change.authorization()).forEach(value -> this.idsByToken.put(value, id));
+      if (this.changes.size() >= this.batchSize) this.batchWaiting.signal();
+    } finally {
+      this.lock.unlock();
+    }
+    // after close(), there's no writer left to do it
+    if (!this.running) flush();
+  }
+
+  private void awaitSpace() {
+    var sample = Timer.start();
+    this.batchWaiting.signal();
+    try {
+      while (this.changes.size() >= this.capacity) this.spaceAvailable.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("there's been an exception", e);
+    } finally {
+      sample.stop(this.backpressure);
+    }
+  }
+
+  private void run() {
+    var written = true;
+    while (this.running) {
+      try {
+        this.lock.lock();
+        try {
+          // running is checked again under the lock, or a close() that signalled before this thread
+          // got here would leave it waiting out the whole flush interval. after a failure, it waits
+          // anyway, rather than trying the same changes again straight away
+          if (this.running && (!written || this.changes.size() < this.batchSize))
+            this.batchWaiting.await(this.flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+          this.lock.unlock();
+        }
+        written = flush();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        // whatever it was, the writer has to keep going, or callers end up waiting for room forever
+        written = false;
+        log.warn("couldn't write queued authorizations", e);
+      }
+    }
+  }
+
+  // writes everything that's waiting, a batch at a time. a change stays visible to lookups until
+  // it's written, and if the authorization changes again meanwhile, the newer change stays queued.
+  // only one flush runs at a time, so an older change is never written over a newer one. answers
+  // whether everything was written
+  private boolean flush() {
+    this.flushLock.lock();
+    try {
+      return flushBatches();
+    } finally {
+      this.flushLock.unlock();
+    }
+  }
+
+  private boolean flushBatches() {
+    while (true) {
+      List<Change> batch;
+      this.lock.lock();
+      try {
+        batch = this.changes.values().stream().limit(this.batchSize).toList();
+      } finally {
+        this.lock.unlock();
+      }
+      if (batch.isEmpty()) return true;
+      var written = this.flushes.record(() -> write(batch));
+      this.lock.lock();
+      try {
+        for (var change : written) {
+          if (this.changes.remove(change.authorization().getId(), change)) unindex(change);
+        }
+        this.spaceAvailable.signalAll();
+      } finally {
+        this.lock.unlock();
+      }
+      // the ones that failed are still at the front of the queue
+      if (written.size() < batch.size()) return false;
+      if (batch.size() < this.batchSize) return true;
+    }
+  }
+
+  // answers the changes that were written
+  private List<Change> write(List<Change> batch) {
+    var saves = batch.stream().filter(change -> !change.removal()).map(Change::authorization).toList();
+    var removals = batch.stream().filter(Change::removal).map(Change::authorization).toList();
+    try {
+      if (!saves.isEmpty()) this.jdbc.batchUpdate(UPSERT_AUTHORIZATION_SQL, saves.stream().map(this::parameters).toList());
+      if (!removals.isEmpty())
+        this.jdbc.batchUpdate(DELETE_AUTHORIZATION_SQL, removals.stream().map(a -> new Object[] {a.getId()}).toList());
+      return batch;
+    } catch (RuntimeException e) {
+      // one bad row fails the whole batch, so try them one at a time
+      if (batch.size() > 1)
+        return batch.stream().flatMap(change -> write(List.of(change)).stream()).toList();
+      this.failures.increment();
+      log.warn("couldn't write authorization {}, will try again", batch.get(0).authorization().getId(), e);
+      return List.of();
+    }
+  }
+
+  private Object[] parameters(OAuth2Authorization authorization) {
+    return this.parametersMapper.apply(authorization).toArray();
+  }
+
+  private void unindex(Change change) {
+    var id = change.authorization().getId();
+    tokenValues(change.authorization()).forEach(value -> this.idsByToken.remove(value, id));
+  }
+
+  private int queued() {
+    this.lock.lock();
+    try {
+      return this.changes.size();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private static Stream<String> tokenValues(OAuth2Authorization authorization) {
+    return Stream.concat(
+        Stream.of(authorization.<String>getAttribute(OAuth2ParameterNames.STATE)),
+        Stream.of(
+                authorization.getToken(OAuth2AuthorizationCode.class),
+                authorization.getToken(OAuth2AccessToken.class),
+                authorization.getToken(OidcIdToken.class),
+                authorization.getToken(OAuth2RefreshToken.class))
+            .map(token -> token != null ? token.getToken().getTokenValue() : null))
+        .filter(value -> value != null);
+  }
+
+  private static boolean holds(OAuth2Authorization authorization, String token, OAuth2TokenType tokenType) {
+    var isState = token.equals(authorization.getAttribute(OAuth2ParameterNames.STATE));
+    if (tokenType == null) return isState || authorization.getToken(token) != null;
+    var type = switch (tokenType.getValue()) {
+      case OAuth2ParameterNames.STATE -> null;
+      case OAuth2ParameterNames.CODE -> OAuth2AuthorizationCode.class;
+      case OAuth2ParameterNames.ACCESS_TOKEN -> OAuth2AccessToken.class;
+      case OAuth2ParameterNames.REFRESH_TOKEN -> OAuth2RefreshToken.class;
+      case OidcParameterNames.ID_TOKEN -> OidcIdToken.class;
+      default -> Object.class;
+    };
+    if (type == null) return isState;
+    var found = authorization.getToken(token);
+    return found != null && type.isInstance(found.getToken());
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    this.running = false;
+    this.lock.lock();
+    try {
+      this.batchWaiting.signal();
+    } finally {
+      this.lock.unlock();
+    }
+    this.writer.join();
+    if (!flush()) log.error("couldn't write {} queued authorization change(s) before closing", queued());
+  }
+}
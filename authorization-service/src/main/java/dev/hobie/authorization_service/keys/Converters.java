@@ -2,18 +2,21 @@ package dev.hobie.authorization_service.keys;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 
 @Configuration
 public class Converters {
 
   @Bean
-  RsaPublicKeyConverter rsaPublicKeyConverter(TextEncryptor textEncryptor) {
-    return new RsaPublicKeyConverter(textEncryptor);
+  PublicKeyConverter publicKeyConverter(
+      TextEncryptor textEncryptor, BytesEncryptor bytesEncryptor) {
+    return new PublicKeyConverter(textEncryptor, bytesEncryptor);
   }
 
   @Bean
-  RsaPrivateKeyConverter rsaPrivateKeyConverter(TextEncryptor textEncryptor) {
-    return new RsaPrivateKeyConverter(textEncryptor);
+  PrivateKeyConverter privateKeyConverter(
+      TextEncryptor textEncryptor, BytesEncryptor bytesEncryptor) {
+    return new PrivateKeyConverter(textEncryptor, bytesEncryptor);
   }
 }
@@ -0,0 +1,20 @@
+package dev.hobie.authorization_service.keys;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// an in-process stand-in for the database counter. share one instance between several
+// KeyRingCache instances to see how a cluster of nodes behaves without running one.
+public class InMemoryKeyRingGeneration implements KeyRingGeneration {
+
+  private final AtomicLong generation = new AtomicLong();
+
+  @Override
+  public long current() {
+    return this.generation.get();
+  }
+
+  @Override
+  public long advance() {
+    return this.generation.incrementAndGet();
+  }
+}
@@ -0,0 +1,33 @@
+package dev.hobie.authorization_service.keys;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// stands in for JdbcSigningKeyPairRepository in benchmarks and tests that don't need PostgreSQL
+public class InMemorySigningKeyPairRepository implements SigningKeyPairRepository {
+
+  private final List<SigningKeyPair> keyPairs = new CopyOnWriteArrayList<>();
+
+  @Override
+  public List<SigningKeyPair> findKeyPairs() {
+    return this.keyPairs.stream().sorted(Comparator.comparing(SigningKeyPair::activates).reversed()).toList();
+  }
+
+  @Override
+  public void save(SigningKeyPair rsaKeyPair) {
+    this.keyPairs.add(rsaKeyPair);
+  }
+
+  @Override
+  public int deleteSuperseded(Instant cutoff) {
+    var superseded = this.keyPairs.stream()
+        .filter(keyPair -> this.keyPairs.stream().anyMatch(newer -> newer.algorithm() == keyPair.algorithm()
+            && newer.activates().isAfter(keyPair.activates())
+            && newer.activates().isBefore(cutoff)))
+        .toList();
+    this.keyPairs.removeAll(superseded);
+    return superseded.size();
+  }
+}
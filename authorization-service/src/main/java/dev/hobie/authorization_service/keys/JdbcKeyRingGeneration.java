@@ -0,0 +1,26 @@
+package dev.hobie.authorization_service.keys;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+class JdbcKeyRingGeneration implements KeyRingGeneration {
+
+  private final JdbcTemplate jdbc;
+
+  JdbcKeyRingGeneration(JdbcTemplate jdbc) {
+    this.jdbc = jdbc;
+  }
+
+  @Override
+  public long current() {
+    var sql = "select generation from key_ring_generation where id = 1";
+    return this.jdbc.queryForObject(sql, Long.class);
+  }
+
+  @Override
+  public long advance() {
+    var sql = "update key_ring_generation set generation = generation + 1 where id = 1 returning generation";
+    return this.jdbc.queryForObject(sql, Long.class);
+  }
+}
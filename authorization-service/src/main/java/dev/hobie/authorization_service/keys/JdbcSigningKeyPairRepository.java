@@ -0,0 +1,103 @@
+package dev.hobie.authorization_service.keys;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+@Component
+public class JdbcSigningKeyPairRepository implements SigningKeyPairRepository {
+
+  private final JdbcTemplate jdbc;
+
+  private final PublicKeyConverter publicKeyConverter;
+
+  private final PrivateKeyConverter privateKeyConverter;
+
+  private final RowMapper<SigningKeyPair> keyPairRowMapper;
+
+  private final KeyStorageMigration storageMigration;
+
+  private final Duration retention;
+
+  JdbcSigningKeyPairRepository(
+      JdbcTemplate jdbc,
+      PublicKeyConverter publicKeyConverter,
+      PrivateKeyConverter privateKeyConverter,
+      RowMapper<SigningKeyPair> keyPairRowMapper,
+      KeyStorageMigration storageMigration,
+      @Value("${jwt.key.rotation.grace-period}") Duration retention) {
+    this.jdbc = jdbc;
+    this.publicKeyConverter = publicKeyConverter;
+    this.privateKeyConverter = privateKeyConverter;
+    this.keyPairRowMapper = keyPairRowMapper;
+    this.storageMigration = storageMigration;
+    this.retention = retention;
+  }
+
+  @Override // <1>
+  public List<SigningKeyPair> findKeyPairs() {
+    var sql = """
+        select * from rsa_key_pairs k
+        where not exists (
+            select 1 from rsa_key_pairs n
+            where n.algorithm = k.algorithm and n.activates > k.activates and n.activates < ?)
+        order by activates desc, created desc, id
+        """;
+    var cutoff = Timestamp.from(Instant.now().minus(this.retention));
+    return this.jdbc.query(sql, this.keyPairRowMapper, cutoff);
+  }
+
+  @Override // <2>
+  public void save(SigningKeyPair keyPair) {
+    var sql = """
+        insert into rsa_key_pairs (id, algorithm, private_key, public_key, created, activates)
+        values (?, ?, ?, ?, ?, ?)
+        on conflict on constraint rsa_key_pairs_id_created_key
+        do nothing
+        """;
+    try (var privateBAOS = new ByteArrayOutputStream();
+        var publicBAOS = new ByteArrayOutputStream()) {
+      // text columns get the PEM that nodes from before the binary format can read
+      var textColumns = this.storageMigration.textColumns();
+      if (textColumns) {
+        this.privateKeyConverter.serializeLegacy(keyPair.privateKey(), privateBAOS);
+        this.publicKeyConverter.serializeLegacy(keyPair.publicKey(), publicBAOS);
+      } else {
+        this.privateKeyConverter.serialize(keyPair.privateKey(), privateBAOS);
+        this.publicKeyConverter.serialize(keyPair.publicKey(), publicBAOS);
+      }
+      var updated = this.jdbc.update(
+          sql,
+          keyPair.id(),
+          keyPair.algorithm().name(),
+          textColumns ? privateBAOS.toString(StandardCharsets.UTF_8) : privateBAOS.toByteArray(),
+          textColumns ? publicBAOS.toString(StandardCharsets.UTF_8) : publicBAOS.toByteArray(),
+          Timestamp.from(keyPair.created()),
+          Timestamp.from(keyPair.activates()));
+      Assert.state(
+          updated == 0 || updated == 1, "no more than one record should have been updated");
+    } catch (IOException e) {
+      throw new IllegalArgumentException("there's been an exception", e);
+    }
+  }
+
+  @Override
+  public int deleteSuperseded(Instant cutoff) {
+    var sql = """
+        delete from rsa_key_pairs k
+        where exists (
+            select 1 from rsa_key_pairs n
+            where n.algorithm = k.algorithm and n.activates > k.activates and n.activates < ?)
+        """;
+    return this.jdbc.update(sql, Timestamp.from(cutoff));
+  }
+}
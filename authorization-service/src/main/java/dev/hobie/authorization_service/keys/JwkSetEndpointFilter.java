@@ -0,0 +1,85 @@
+package dev.hobie.authorization_service.keys;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// serves the public JWK set from bytes that are only rebuilt when the KeyRing changes, with a strong
+// ETag and a max-age short enough that verifiers see the next key before it signs anything
+public class JwkSetEndpointFilter extends OncePerRequestFilter {
+
+  private final KeyRingCache keyRingCache;
+
+  private final String endpoint;
+
+  private final String cacheControl;
+
+  private volatile JwkSet jwkSet;
+
+  public JwkSetEndpointFilter(KeyRingCache keyRingCache, String endpoint, Duration maxAge) {
+    this.keyRingCache = keyRingCache;
+    this.endpoint = endpoint;
+    this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().getHeaderValue();
+  }
+
+  private record JwkSet(KeyRing keyRing, byte[] json, String etag) {}
+
+  @Override
+  protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+    var method = request.getMethod();
+    return !("GET".equals(method) || "HEAD".equals(method))
+        || !this.endpoint.equals(request.getRequestURI().substring(request.getContextPath().length()));
+  }
+
+  @Override
+  protected void doFilterInternal(
+      @NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response,
+      @NonNull FilterChain filterChain)
+      throws ServletException, IOException {
+    var current = currentJwkSet();
+    response.setHeader(HttpHeaders.CACHE_CONTROL, this.cacheControl);
+    if (new ServletWebRequest(request, response).checkNotModified(current.etag())) return;
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setContentLength(current.json().length);
+    if ("GET".equals(request.getMethod())) response.getOutputStream().write(current.json());
+  }
+
+  private JwkSet currentJwkSet() {
+    var keyRing = this.keyRingCache.get();
+    var current = this.jwkSet;
+    if (current != null && current.keyRing() == keyRing) return current;
+    // every refresh decodes a new KeyRing, even when no key has changed
+    if (current != null && current.keyRing().hasSameKeysAs(keyRing)) {
+      current = new JwkSet(keyRing, current.json(), current.etag());
+      this.jwkSet = current;
+      return current;
+    }
+    var json = keyRing.jwkSet().toString(true).getBytes(StandardCharsets.UTF_8);
+    current = new JwkSet(keyRing, json, etag(json));
+    this.jwkSet = current;
+    return current;
+  }
+
+  private static String etag(byte[] json) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(json);
+      return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
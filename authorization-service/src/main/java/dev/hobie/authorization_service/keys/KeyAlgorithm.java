@@ -0,0 +1,151 @@
+package dev.hobie.authorization_service.keys;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.Base64URL;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Set;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.settings.OAuth2TokenFormat;
+
+// the JWS algorithms we can generate, persist and sign with, and everything the JCA needs for each
+public enum KeyAlgorithm {
+  RS256(JWSAlgorithm.RS256, "RSA", "SHA256withRSA"),
+
+  ES256(JWSAlgorithm.ES256, "EC", "SHA256withECDSA"),
+
+  EdDSA(JWSAlgorithm.EdDSA, "Ed25519", "Ed25519");
+
+  // a custom TokenSettings entry naming the algorithm a client's access tokens are signed with
+  public static final String ACCESS_TOKEN_SIGNATURE_ALGORITHM =
+      "settings.token.access-token-signature-algorithm";
+
+  private static final JwsAlgorithm EDDSA = () -> "EdDSA";
+
+  private final JWSAlgorithm jwsAlgorithm;
+
+  private final String keyFactoryAlgorithm;
+
+  private final String signatureAlgorithm;
+
+  KeyAlgorithm(JWSAlgorithm jwsAlgorithm, String keyFactoryAlgorithm, String signatureAlgorithm) {
+    this.jwsAlgorithm = jwsAlgorithm;
+    this.keyFactoryAlgorithm = keyFactoryAlgorithm;
+    this.signatureAlgorithm = signatureAlgorithm;
+  }
+
+  public static KeyAlgorithm forAccessTokens(RegisteredClient registeredClient) {
+    var setting = registeredClient.getTokenSettings().getSetting(ACCESS_TOKEN_SIGNATURE_ALGORITHM);
+    return setting == null ? RS256 : named(setting.toString());
+  }
+
+  public static KeyAlgorithm forIdTokens(RegisteredClient registeredClient) {
+    return of(registeredClient.getTokenSettings().getIdTokenSignatureAlgorithm());
+  }
+
+  public static KeyAlgorithm of(JwsAlgorithm jwsAlgorithm) {
+    return named(jwsAlgorithm.getName());
+  }
+
+  private static KeyAlgorithm named(String name) {
+    for (var algorithm : values()) {
+      if (algorithm.name().equals(name)) return algorithm;
+    }
+    throw new IllegalArgumentException("can't sign with " + name + ", only with " + Arrays.toString(values()));
+  }
+
+  // throws if we'd have to sign the client's JWTs with an algorithm we have no keys for. opaque access
+  // tokens aren't signed, and ID tokens only matter to clients that can ask for openid.
+  public static void checkSupported(RegisteredClient registeredClient, Set<KeyAlgorithm> enabled) {
+    var tokenSettings = registeredClient.getTokenSettings();
+    if (OAuth2TokenFormat.SELF_CONTAINED.equals(tokenSettings.getAccessTokenFormat()))
+      checkEnabled(registeredClient, forAccessTokens(registeredClient), enabled);
+    if (registeredClient.getScopes().contains(OidcScopes.OPENID))
+      checkEnabled(registeredClient, forIdTokens(registeredClient), enabled);
+  }
+
+  private static void checkEnabled(RegisteredClient registeredClient, KeyAlgorithm algorithm, Set<KeyAlgorithm> enabled) {
+    if (!enabled.contains(algorithm))
+      throw new IllegalArgumentException("client " + registeredClient.getClientId() + " needs " + algorithm
+          + " keys, but jwt.key.algorithms only has " + enabled);
+  }
+
+  public JWSAlgorithm jwsAlgorithm() {
+    return this.jwsAlgorithm;
+  }
+
+  // Spring Security's SignatureAlgorithm has no EdDSA constant
+  public JwsAlgorithm springJwsAlgorithm() {
+    var signatureAlgorithm = SignatureAlgorithm.from(name());
+    return signatureAlgorithm != null ? signatureAlgorithm : EDDSA;
+  }
+
+  public String keyFactoryAlgorithm() {
+    return this.keyFactoryAlgorithm;
+  }
+
+  public String signatureAlgorithm() {
+    return this.signatureAlgorithm;
+  }
+
+  public KeyPair generateKeyPair() {
+    try {
+      var keyPairGenerator = KeyPairGenerator.getInstance(this.keyFactoryAlgorithm);
+      switch (this) {
+        case RS256 -> keyPairGenerator.initialize(2048);
+        case ES256 -> keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        case EdDSA -> {}
+      }
+      return keyPairGenerator.generateKeyPair();
+    } catch (GeneralSecurityException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  public JWK toJwk(SigningKeyPair keyPair) {
+    return switch (this) {
+      case RS256 ->
+          new RSAKey.Builder((RSAPublicKey) keyPair.publicKey())
+              .privateKey((RSAPrivateKey) keyPair.privateKey())
+              .keyUse(KeyUse.SIGNATURE)
+              .algorithm(this.jwsAlgorithm)
+              .keyID(keyPair.id())
+              .build();
+      case ES256 ->
+          new ECKey.Builder(Curve.P_256, (ECPublicKey) keyPair.publicKey())
+              .privateKey((ECPrivateKey) keyPair.privateKey())
+              .keyUse(KeyUse.SIGNATURE)
+              .algorithm(this.jwsAlgorithm)
+              .keyID(keyPair.id())
+              .build();
+      // the raw Ed25519 keys are the last 32 bytes of their X.509 and PKCS#8 encodings
+      case EdDSA ->
+          new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(raw(keyPair.publicKey().getEncoded())))
+              .d(Base64URL.encode(raw(keyPair.privateKey().getEncoded())))
+              .keyUse(KeyUse.SIGNATURE)
+              .algorithm(this.jwsAlgorithm)
+              .keyID(keyPair.id())
+              .build();
+    };
+  }
+
+  private static byte[] raw(byte[] encoded) {
+    return Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length);
+  }
+}
@@ -1,15 +1,17 @@
 package dev.hobie.authorization_service.keys;
 
-import com.nimbusds.jose.jwk.source.JWKSource;
-import com.nimbusds.jose.proc.SecurityContext;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
 import org.springframework.security.crypto.encrypt.Encryptors;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 import org.springframework.security.oauth2.core.OAuth2Token;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.authorization.settings.AuthorizationServerSettings;
 import org.springframework.security.oauth2.server.authorization.token.*;
 
 @Configuration
@@ -23,6 +25,13 @@ public class KeyConfiguration {
     return Encryptors.text(pw, salt);
   }
 
+  @Bean
+  BytesEncryptor bytesEncryptor(
+      @Value("${jwt.persistence.password}") String pw,
+      @Value("${jwt.persistence.salt}") String salt) {
+    return Encryptors.stronger(pw, salt);
+  }
+
   // <2>
   @Bean
   OAuth2TokenGenerator<OAuth2Token> delegatingOAuth2TokenGenerator(
@@ -35,7 +44,22 @@ public class KeyConfiguration {
 
   // <3>
   @Bean
-  NimbusJwtEncoder jwtEncoder(JWKSource<SecurityContext> jwkSource) {
-    return new NimbusJwtEncoder(jwkSource);
+  KeyRingJwtEncoder jwtEncoder(KeyRingCache keyRingCache) {
+    return new KeyRingJwtEncoder(keyRingCache);
+  }
+
+  // runs ahead of Spring Security. the max-age is half the time a key is published before it's
+  // used, so every cached copy of the JWK set includes a key before it starts signing tokens
+  @Bean
+  FilterRegistrationBean<JwkSetEndpointFilter> jwkSetEndpointFilter(
+      KeyRingCache keyRingCache,
+      AuthorizationServerSettings settings,
+      @Value("${jwt.key.rotation.publish-ahead}") Duration publishAhead) {
+    var endpoint = settings.getJwkSetEndpoint();
+    var filter = new JwkSetEndpointFilter(keyRingCache, endpoint, publishAhead.dividedBy(2));
+    var registration = new FilterRegistrationBean<>(filter);
+    registration.addUrlPatterns(endpoint);
+    registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+    return registration;
   }
 }
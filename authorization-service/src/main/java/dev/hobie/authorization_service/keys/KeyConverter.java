@@ -0,0 +1,75 @@
+package dev.hobie.authorization_service.keys;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.util.Arrays;
+import java.util.Base64;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.lang.NonNull;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+// stored keys start with a format byte. version 1 is the DER encoding of the key, encrypted with
+// AES-GCM. rows written before the format byte existed hold the hex text of an encrypted PEM
+// document, which can never start with 0x01, so they still read.
+public abstract class KeyConverter<K extends Key> implements Serializer<K> {
+
+  static final byte ENCRYPTED_DER = 0x01;
+
+  private final TextEncryptor textEncryptor;
+
+  private final BytesEncryptor bytesEncryptor;
+
+  private final String pemType;
+
+  KeyConverter(TextEncryptor textEncryptor, BytesEncryptor bytesEncryptor, String pemType) {
+    this.textEncryptor = textEncryptor;
+    this.bytesEncryptor = bytesEncryptor;
+    this.pemType = pemType;
+  }
+
+  static boolean isLegacy(byte[] stored) {
+    return stored.length == 0 || stored[0] != ENCRYPTED_DER;
+  }
+
+  @Override // <1>
+  public void serialize(@NonNull K key, OutputStream outputStream) throws IOException {
+    outputStream.write(ENCRYPTED_DER);
+    outputStream.write(this.bytesEncryptor.encrypt(key.getEncoded()));
+  }
+
+  // the PEM text format that was used before the format byte was introduced
+  void serializeLegacy(K key, OutputStream outputStream) throws IOException {
+    var pem = "-----BEGIN " + this.pemType + "-----\n"
+        + Base64.getMimeEncoder().encodeToString(key.getEncoded())
+        + "\n-----END " + this.pemType + "-----";
+    outputStream.write(this.textEncryptor.encrypt(pem).getBytes(StandardCharsets.UTF_8));
+  }
+
+  @NonNull // <2>
+  public K deserialize(@NonNull InputStream inputStream, KeyAlgorithm algorithm) {
+    try {
+      var stored = inputStream.readAllBytes();
+      var der = isLegacy(stored)
+          ? decodeLegacy(stored)
+          : this.bytesEncryptor.decrypt(Arrays.copyOfRange(stored, 1, stored.length));
+      return generate(KeyFactory.getInstance(algorithm.keyFactoryAlgorithm()), der);
+    } catch (IOException | GeneralSecurityException throwable) {
+      throw new IllegalArgumentException("there's been an exception", throwable);
+    }
+  }
+
+  private byte[] decodeLegacy(byte[] stored) {
+    var pem = this.textEncryptor.decrypt(new String(stored, StandardCharsets.UTF_8));
+    var base64 = pem.replace("-----BEGIN " + this.pemType + "-----", "")
+        .replace("-----END " + this.pemType + "-----", "");
+    return Base64.getMimeDecoder().decode(base64);
+  }
+
+  protected abstract K generate(KeyFactory keyFactory, byte[] der) throws GeneralSecurityException;
+}
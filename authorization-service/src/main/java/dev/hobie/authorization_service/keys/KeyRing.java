@@ -0,0 +1,68 @@
+package dev.hobie.authorization_service.keys;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// an immutable, fully decoded snapshot of the keys in the repository, newest activation first.
+// keys that activate in the future are published in the JWK set but aren't used for signing yet.
+public record KeyRing(List<SigningKeyPair> keyPairs, JWKSet jwkSet) {
+
+  static final Comparator<SigningKeyPair> NEWEST_FIRST =
+      Comparator.comparing(SigningKeyPair::activates)
+          .thenComparing(SigningKeyPair::created)
+          .reversed()
+          .thenComparing(SigningKeyPair::id);
+
+  public KeyRing {
+    keyPairs = keyPairs.stream().sorted(NEWEST_FIRST).toList();
+  }
+
+  public static KeyRing of(List<SigningKeyPair> keyPairs) {
+    var jwks = new ArrayList<JWK>(keyPairs.size());
+    for (var keyPair : keyPairs.stream().sorted(NEWEST_FIRST).toList()) {
+      jwks.add(keyPair.algorithm().toJwk(keyPair));
+    }
+    return new KeyRing(keyPairs, new JWKSet(jwks));
+  }
+
+  public SigningKeyPair activeKeyPair(Instant now, KeyAlgorithm algorithm) {
+    for (var keyPair : this.keyPairs) {
+      if (keyPair.algorithm() == algorithm && !keyPair.activates().isAfter(now)) return keyPair;
+    }
+    return null;
+  }
+
+  public List<SigningKeyPair> nextKeyPairs(Instant now, KeyAlgorithm algorithm) {
+    return this.keyPairs.stream()
+        .filter(keyPair -> keyPair.algorithm() == algorithm && keyPair.activates().isAfter(now))
+        .toList();
+  }
+
+  public String currentKeyId(KeyAlgorithm algorithm) {
+    var active = activeKeyPair(Instant.now(), algorithm);
+    return active == null ? null : active.id();
+  }
+
+  public SigningKeyPair findKeyPair(String keyId) {
+    for (var keyPair : this.keyPairs) {
+      if (keyPair.id().equals(keyId)) return keyPair;
+    }
+    return null;
+  }
+
+  boolean hasSameKeysAs(KeyRing other) {
+    if (other == null || other.keyPairs.size() != this.keyPairs.size()) return false;
+    for (var i = 0; i < this.keyPairs.size(); i++) {
+      var mine = this.keyPairs.get(i);
+      var theirs = other.keyPairs.get(i);
+      if (!mine.id().equals(theirs.id())
+          || !mine.activates().equals(theirs.activates())
+          || !mine.publicKey().equals(theirs.publicKey())) return false;
+    }
+    return true;
+  }
+}
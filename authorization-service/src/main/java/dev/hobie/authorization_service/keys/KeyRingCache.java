@@ -0,0 +1,61 @@
+package dev.hobie.authorization_service.keys;
+
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class KeyRingCache {
+
+  private final AtomicReference<KeyRing> keyRing = new AtomicReference<>();
+
+  private final SigningKeyPairRepository repository;
+
+  private final KeyRingGeneration generation;
+
+  private final ApplicationEventPublisher publisher;
+
+  private volatile long loadedGeneration = -1;
+
+  public KeyRingCache(
+      SigningKeyPairRepository repository,
+      KeyRingGeneration generation,
+      ApplicationEventPublisher publisher) {
+    this.repository = repository;
+    this.generation = generation;
+    this.publisher = publisher;
+  }
+
+  public KeyRing get() {
+    var current = this.keyRing.get();
+    return current != null ? current : refresh();
+  }
+
+  // reads one counter, and only reads the keys when some node has changed them since
+  @Scheduled(
+      initialDelayString = "${jwt.key.change-check-interval}",
+      fixedDelayString = "${jwt.key.change-check-interval}")
+  public void refreshIfChanged() {
+    if (this.generation.current() != this.loadedGeneration) refresh();
+  }
+
+  // call this after changing the stored keys so that every other node picks them up
+  public KeyRing keysChanged() {
+    this.generation.advance();
+    return refresh();
+  }
+
+  public synchronized KeyRing refresh() {
+    // read the generation before the keys: a change that lands in between is loaded again next time
+    var generation = this.generation.current();
+    var fresh = KeyRing.of(this.repository.findKeyPairs());
+    var previous = this.keyRing.getAndSet(fresh);
+    this.loadedGeneration = generation;
+    log.debug("refreshed the key ring with {} key(s) at generation {}", fresh.keyPairs().size(), generation);
+    if (!fresh.hasSameKeysAs(previous)) this.publisher.publishEvent(new KeyRingChangedEvent(fresh));
+    return fresh;
+  }
+}
@@ -0,0 +1,15 @@
+package dev.hobie.authorization_service.keys;
+
+import org.springframework.context.ApplicationEvent;
+
+public class KeyRingChangedEvent extends ApplicationEvent {
+
+  public KeyRingChangedEvent(KeyRing keyRing) {
+    super(keyRing);
+  }
+
+  @Override
+  public KeyRing getSource() {
+    return (KeyRing) super.getSource();
+  }
+}
@@ -0,0 +1,10 @@
+package dev.hobie.authorization_service.keys;
+
+// a cluster-wide counter bumped whenever a node changes the stored keys. reading it is much cheaper
+// than reading the keys, so every node can check it often and reload only when it moves.
+public interface KeyRingGeneration {
+
+  long current(); // <1>
+
+  long advance(); // <2>
+}
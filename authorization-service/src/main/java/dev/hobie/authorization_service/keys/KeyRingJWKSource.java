@@ -0,0 +1,62 @@
+package dev.hobie.authorization_service.keys;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import java.util.List;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+import org.springframework.security.oauth2.server.authorization.token.OAuth2TokenCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+@Component
+public class KeyRingJWKSource
+    implements JWKSource<SecurityContext>, OAuth2TokenCustomizer<JwtEncodingContext> {
+
+  private final KeyRingCache keyRingCache;
+
+  private final Set<KeyAlgorithm> algorithms;
+
+  public KeyRingJWKSource(KeyRingCache keyRingCache, @Value("${jwt.key.algorithms}") Set<KeyAlgorithm> algorithms) {
+    this.keyRingCache = keyRingCache;
+    this.algorithms = algorithms;
+  }
+
+  @Override // <1>
+  public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) {
+    return jwkSelector.select(this.keyRingCache.get().jwkSet());
+  }
+
+  @Override // <2>
+  public void customize(JwtEncodingContext context) {
+    var algorithm = algorithm(context);
+    var kid = this.keyRingCache.get().currentKeyId(algorithm);
+    Assert.state(kid != null, "there are no " + algorithm + " key pairs with which to sign the token");
+    context.getJwsHeader().algorithm(algorithm.springJwsAlgorithm()).keyId(kid);
+  }
+
+  // a client stored before jwt.key.algorithms changed can still ask for an algorithm we don't
+  // sign with: it gets an OAuth2 error rather than a 500. its credentials are fine, so it's
+  // unauthorized_client, not invalid_client
+  private KeyAlgorithm algorithm(JwtEncodingContext context) {
+    var registeredClient = context.getRegisteredClient();
+    try {
+      var algorithm = OAuth2TokenType.ACCESS_TOKEN.equals(context.getTokenType())
+          ? KeyAlgorithm.forAccessTokens(registeredClient)
+          : KeyAlgorithm.forIdTokens(registeredClient);
+      if (!this.algorithms.contains(algorithm))
+        throw new IllegalArgumentException(algorithm + " isn't one of jwt.key.algorithms");
+      return algorithm;
+    } catch (IllegalArgumentException e) {
+      throw new OAuth2AuthenticationException(new OAuth2Error(
+          OAuth2ErrorCodes.UNAUTHORIZED_CLIENT, "the client's tokens can't be signed: " + e.getMessage(), null));
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package dev.hobie.authorization_service.keys;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.impl.ECDSA;
+import com.nimbusds.jwt.SignedJWT;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.text.ParseException;
+import java.util.Collections;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+
+// checks that a JWT was signed by one of the keys in the KeyRing, and hands back its claims the way
+// KeyRingJwtEncoder had them. it doesn't look at the times in the claims: whoever asks decides
+// whether an expired token is of any use to them.
+public class KeyRingJwtDecoder implements JwtDecoder {
+
+  private final MappedJwtClaimSetConverter claimSetConverter =
+      MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+
+  private final KeyRingCache keyRingCache;
+
+  public KeyRingJwtDecoder(KeyRingCache keyRingCache) {
+    this.keyRingCache = keyRingCache;
+  }
+
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    SignedJWT jwt;
+    try {
+      jwt = SignedJWT.parse(token);
+    } catch (ParseException e) {
+      throw new BadJwtException("couldn't parse the JWT: " + e.getMessage(), e);
+    }
+    var header = jwt.getHeader();
+    var keyPair = header.getKeyID() == null ? null : this.keyRingCache.get().findKeyPair(header.getKeyID());
+    if (keyPair == null || !keyPair.algorithm().jwsAlgorithm().equals(header.getAlgorithm()))
+      throw new BadJwtException("no " + header.getAlgorithm() + " key with kid " + header.getKeyID());
+    if (!verify(jwt, keyPair)) throw new BadJwtException("the JWT's signature doesn't match its key");
+    try {
+      var claims = this.claimSetConverter.convert(jwt.getJWTClaimsSet().getClaims());
+      return Jwt.withTokenValue(token)
+          .headers(headers -> headers.putAll(header.toJSONObject()))
+          .claims(all -> all.putAll(claims))
+          .build();
+    } catch (ParseException | IllegalArgumentException e) {
+      throw new BadJwtException("couldn't read the JWT's claims: " + e.getMessage(), e);
+    }
+  }
+
+  private static boolean verify(SignedJWT jwt, SigningKeyPair keyPair) {
+    try {
+      var signed = jwt.getSignature().decode();
+      // JWS has R || S where the JCA wants DER encoded ECDSA signatures
+      if (keyPair.algorithm() == KeyAlgorithm.ES256) {
+        if (signed.length != ECDSA.getSignatureByteArrayLength(JWSAlgorithm.ES256)) return false;
+        signed = ECDSA.transcodeSignatureToDER(signed);
+      }
+      var signature = Signature.getInstance(keyPair.algorithm().signatureAlgorithm());
+      signature.initVerify(keyPair.publicKey());
+      signature.update(jwt.getSigningInput());
+      return signature.verify(signed);
+    } catch (GeneralSecurityException | JOSEException e) {
+      return false;
+    }
+  }
+}
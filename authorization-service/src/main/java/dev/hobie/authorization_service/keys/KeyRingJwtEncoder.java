@@ -0,0 +1,135 @@
+package dev.hobie.authorization_service.keys;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.util.Base64;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.net.URISyntaxException;
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.ApplicationListener;
+import org.springframework.lang.NonNull;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+import org.springframework.util.StringUtils;
+
+// signs JWTs straight from the KeyRing, keeping one ready signer per kid and algorithm until the
+// ring changes
+public class KeyRingJwtEncoder implements JwtEncoder, ApplicationListener<KeyRingChangedEvent> {
+
+  private static final JwsHeader DEFAULT_JWS_HEADER = JwsHeader.with(SignatureAlgorithm.RS256).build();
+
+  private final Map<SignerKey, JWSSigner> signers = new ConcurrentHashMap<>();
+
+  private final KeyRingCache keyRingCache;
+
+  public KeyRingJwtEncoder(KeyRingCache keyRingCache) {
+    this.keyRingCache = keyRingCache;
+  }
+
+  private record SignerKey(String kid, KeyAlgorithm algorithm) {}
+
+  @Override
+  public void onApplicationEvent(@NonNull KeyRingChangedEvent event) {
+    this.signers.clear();
+  }
+
+  @Override
+  public Jwt encode(JwtEncoderParameters parameters) throws JwtEncodingException {
+    var headers = parameters.getJwsHeader() != null ? parameters.getJwsHeader() : DEFAULT_JWS_HEADER;
+    var claims = parameters.getClaims();
+    var keyRing = this.keyRingCache.get();
+    var algorithm = KeyAlgorithm.of(headers.getAlgorithm());
+    var kid =
+        StringUtils.hasText(headers.getKeyId())
+            ? headers.getKeyId()
+            : keyRing.currentKeyId(algorithm);
+    var keyPair = kid == null ? null : keyRing.findKeyPair(kid);
+    if (keyPair == null || keyPair.algorithm() != algorithm)
+      throw new JwtEncodingException("couldn't find a " + algorithm + " signing key for kid " + kid);
+    if (!kid.equals(headers.getKeyId())) headers = JwsHeader.from(headers).keyId(kid).build();
+
+    var signedJwt = new SignedJWT(convert(headers), convert(claims));
+    try {
+      signedJwt.sign(signerFor(keyPair));
+    } catch (JOSEException e) {
+      throw new JwtEncodingException("couldn't sign the JWT: " + e.getMessage(), e);
+    }
+    return new Jwt(
+        signedJwt.serialize(),
+        claims.getIssuedAt(),
+        claims.getExpiresAt(),
+        headers.getHeaders(),
+        claims.getClaims());
+  }
+
+  // a kid only ever names one key: when the ring changes, the signers are dropped anyway
+  private JWSSigner signerFor(SigningKeyPair keyPair) {
+    return this.signers.computeIfAbsent(
+        new SignerKey(keyPair.id(), keyPair.algorithm()), key -> new PooledJwsSigner(keyPair));
+  }
+
+  private static JWSHeader convert(JwsHeader headers) {
+    var builder = new JWSHeader.Builder(JWSAlgorithm.parse(headers.getAlgorithm().getName()));
+    try {
+      if (headers.getJwkSetUrl() != null) builder.jwkURL(headers.getJwkSetUrl().toURI());
+      if (headers.getX509Url() != null) builder.x509CertURL(headers.getX509Url().toURI());
+      if (headers.getJwk() != null && !headers.getJwk().isEmpty())
+        builder.jwk(JWK.parse(headers.getJwk()));
+    } catch (URISyntaxException | ParseException e) {
+      throw new JwtEncodingException("couldn't convert the JOSE header: " + e.getMessage(), e);
+    }
+    if (StringUtils.hasText(headers.getKeyId())) builder.keyID(headers.getKeyId());
+    if (headers.getX509CertificateChain() != null && !headers.getX509CertificateChain().isEmpty())
+      builder.x509CertChain(headers.getX509CertificateChain().stream().map(Base64::new).toList());
+    // the SHA-1 thumbprint (x5t) is deprecated, and we never set it: only x5t#S256 is written
+    if (StringUtils.hasText(headers.getX509SHA256Thumbprint()))
+      builder.x509CertSHA256Thumbprint(new Base64URL(headers.getX509SHA256Thumbprint()));
+    if (StringUtils.hasText(headers.getType())) builder.type(new JOSEObjectType(headers.getType()));
+    if (StringUtils.hasText(headers.getContentType())) builder.contentType(headers.getContentType());
+    if (headers.getCritical() != null && !headers.getCritical().isEmpty())
+      builder.criticalParams(headers.getCritical());
+    headers
+        .getHeaders()
+        .forEach(
+            (name, value) -> {
+              if (!JWSHeader.getRegisteredParameterNames().contains(name))
+                builder.customParam(name, value);
+            });
+    return builder.build();
+  }
+
+  private static JWTClaimsSet convert(JwtClaimsSet claims) {
+    var builder = new JWTClaimsSet.Builder();
+    var issuer = claims.getClaim(JwtClaimNames.ISS);
+    if (issuer != null) builder.issuer(issuer.toString());
+    if (StringUtils.hasText(claims.getSubject())) builder.subject(claims.getSubject());
+    if (claims.getAudience() != null && !claims.getAudience().isEmpty())
+      builder.audience(claims.getAudience());
+    if (claims.getExpiresAt() != null) builder.expirationTime(Date.from(claims.getExpiresAt()));
+    if (claims.getNotBefore() != null) builder.notBeforeTime(Date.from(claims.getNotBefore()));
+    if (claims.getIssuedAt() != null) builder.issueTime(Date.from(claims.getIssuedAt()));
+    if (StringUtils.hasText(claims.getId())) builder.jwtID(claims.getId());
+    claims
+        .getClaims()
+        .forEach(
+            (name, value) -> {
+              if (!JWTClaimsSet.getRegisteredNames().contains(name)) builder.claim(name, value);
+            });
+    return builder.build();
+  }
+}
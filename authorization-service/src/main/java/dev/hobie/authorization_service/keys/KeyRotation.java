@@ -0,0 +1,125 @@
+package dev.hobie.authorization_service.keys;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// keeps a "next" key published ahead of its activation and retires superseded keys after a grace
+// period. all of it runs on the scheduler's thread, never on a request thread, and only on the
+// replica holding the advisory lock, so two replicas never both generate the next key.
+@Slf4j
+@Component
+public class KeyRotation {
+
+  // an arbitrary key that all the replicas agree on
+  private static final long ADVISORY_LOCK_KEY = 0x6f617574686b6579L;
+
+  private final JdbcTemplate jdbc;
+
+  private final Keys keys;
+
+  private final SigningKeyPairRepository repository;
+
+  private final KeyRingCache keyRingCache;
+
+  private final String keyIdPrefix;
+
+  private final Set<KeyAlgorithm> algorithms;
+
+  private final Duration rotationInterval;
+
+  private final Duration publishAhead;
+
+  private final Duration gracePeriod;
+
+  KeyRotation(
+      JdbcTemplate jdbc,
+      Keys keys,
+      SigningKeyPairRepository repository,
+      KeyRingCache keyRingCache,
+      @Value("${jwt.key.id}") String keyIdPrefix,
+      @Value("${jwt.key.algorithms}") Set<KeyAlgorithm> algorithms,
+      @Value("${jwt.key.rotation.interval}") Duration rotationInterval,
+      @Value("${jwt.key.rotation.publish-ahead}") Duration publishAhead,
+      @Value("${jwt.key.rotation.grace-period}") Duration gracePeriod) {
+    this.jdbc = jdbc;
+    this.keys = keys;
+    this.repository = repository;
+    this.keyRingCache = keyRingCache;
+    this.keyIdPrefix = keyIdPrefix;
+    this.algorithms = algorithms;
+    this.rotationInterval = rotationInterval;
+    this.publishAhead = publishAhead;
+    this.gracePeriod = gracePeriod;
+  }
+
+  @Scheduled(
+      initialDelayString = "${jwt.key.rotation.check-interval}",
+      fixedDelayString = "${jwt.key.rotation.check-interval}")
+  public synchronized void rotate() {
+    // the advisory lock belongs to a database session, so it's taken and released on one connection
+    this.jdbc.execute((ConnectionCallback<Void>) connection -> {
+      var session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+      var locked = session.queryForObject("select pg_try_advisory_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+      if (!Boolean.TRUE.equals(locked)) {
+        log.debug("another replica is rotating the keys");
+        return null;
+      }
+      try {
+        rotateLocked();
+      } finally {
+        session.queryForObject("select pg_advisory_unlock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+      }
+      return null;
+    });
+  }
+
+  private void rotateLocked() {
+    // whoever held the lock before us advanced the generation after changing the keys, so one
+    // counter read tells us whether the ring we have is still current
+    this.keyRingCache.refreshIfChanged();
+    var keyRing = this.keyRingCache.get();
+    var changed = false;
+    for (var algorithm : this.algorithms) changed |= rotate(keyRing, algorithm);
+    var retired = this.repository.deleteSuperseded(Instant.now().minus(this.gracePeriod));
+    if (retired > 0) log.info("retired {} superseded key(s)", retired);
+    if (changed || retired > 0) this.keyRingCache.keysChanged();
+  }
+
+  // true if it generated a key
+  private boolean rotate(KeyRing keyRing, KeyAlgorithm algorithm) {
+    var now = Instant.now();
+    var active = keyRing.activeKeyPair(now, algorithm);
+    if (active == null) {
+      save(algorithm, now);
+      return true;
+    }
+
+    var rotatesAt = active.activates().plus(this.rotationInterval);
+    if (keyRing.nextKeyPairs(now, algorithm).isEmpty()
+        && !now.isBefore(rotatesAt.minus(this.publishAhead))) {
+      var activates = rotatesAt.isAfter(now.plus(this.publishAhead)) ? rotatesAt : now.plus(this.publishAhead);
+      save(algorithm, activates);
+      return true;
+    }
+    return false;
+  }
+
+  private void save(KeyAlgorithm algorithm, Instant activates) {
+    var keyPair = this.keys.generateKeyPair(nextKeyId(), algorithm, Instant.now(), activates);
+    this.repository.save(keyPair);
+    log.info("generated {} key {}, which activates at {}", algorithm, keyPair.id(), activates);
+  }
+
+  private String nextKeyId() {
+    return this.keyIdPrefix + "-" + UUID.randomUUID();
+  }
+}
@@ -0,0 +1,87 @@
+package dev.hobie.authorization_service.keys;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.Key;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+// rsa_key_pairs had text columns holding encrypted PEM. as long as they're text, keys are still
+// written that way, so that nodes that only read PEM keep working. once every node reads the binary
+// format, setting jwt.key.storage-migration.enabled makes migrate() change the columns to bytea and
+// re-encode the rows still holding PEM. it locks the table while it does, so it's meant to run once,
+// and then be switched off again.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeyStorageMigration {
+
+  private final JdbcTemplate jdbc;
+
+  private final TransactionOperations transactionOperations;
+
+  private final PrivateKeyConverter privateKeyConverter;
+
+  private final PublicKeyConverter publicKeyConverter;
+
+  private record StoredKeyPair(String id, KeyAlgorithm algorithm, byte[] privateKey, byte[] publicKey) {}
+
+  // asks every time: keys are saved rarely, and migrate() can change the answer
+  public boolean textColumns() {
+    var type = this.jdbc.queryForObject(
+        """
+        select data_type from information_schema.columns
+        where table_schema = current_schema() and table_name = 'rsa_key_pairs'
+          and column_name = 'private_key'
+        """,
+        String.class);
+    return "text".equals(type);
+  }
+
+  public void migrate() {
+    this.transactionOperations.executeWithoutResult(status -> {
+      this.jdbc.execute("lock table rsa_key_pairs in exclusive mode");
+      if (textColumns()) {
+        log.info("converting rsa_key_pairs.private_key and public_key from text to bytea");
+        this.jdbc.execute(
+            """
+            alter table rsa_key_pairs
+                alter column private_key type bytea using convert_to(private_key, 'UTF8'),
+                alter column public_key type bytea using convert_to(public_key, 'UTF8')
+            """);
+      }
+      var rows = this.jdbc.query(
+          "select id, algorithm, private_key, public_key from rsa_key_pairs",
+          (rs, rowNum) -> new StoredKeyPair(
+              rs.getString("id"),
+              KeyAlgorithm.valueOf(rs.getString("algorithm")),
+              rs.getBytes("private_key"),
+              rs.getBytes("public_key")));
+      var count = 0;
+      for (var row : rows) {
+        if (!KeyConverter.isLegacy(row.privateKey()) && !KeyConverter.isLegacy(row.publicKey()))
+          continue;
+        count += this.jdbc.update(
+            "update rsa_key_pairs set private_key = ?, public_key = ? where id = ?",
+            reencode(this.privateKeyConverter, row.privateKey(), row.algorithm()),
+            reencode(this.publicKeyConverter, row.publicKey(), row.algorithm()),
+            row.id());
+      }
+      if (count > 0) log.info("re-encoded {} key pair(s) in the binary storage format", count);
+    });
+  }
+
+  private static <K extends Key> byte[] reencode(
+      KeyConverter<K> converter, byte[] stored, KeyAlgorithm algorithm) {
+    try (var out = new ByteArrayOutputStream()) {
+      converter.serialize(converter.deserialize(new ByteArrayInputStream(stored), algorithm), out);
+      return out.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("there's been an exception", e);
+    }
+  }
+}
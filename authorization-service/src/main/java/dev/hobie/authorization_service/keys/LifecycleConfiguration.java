@@ -1,30 +1,30 @@
 package dev.hobie.authorization_service.keys;
 
-import java.time.Instant;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
+@EnableScheduling
 public class LifecycleConfiguration {
 
   // <1>
   @Bean
-  ApplicationListener<RsaKeyPairGenerationRequestEvent> keyPairGenerationRequestListener(
-      Keys keys, RsaKeyPairRepository repository, @Value("${jwt.key.id}") String keyId) {
-    return event -> repository.save(keys.generateKeyPair(keyId, event.getSource()));
+  ApplicationListener<ApplicationReadyEvent> applicationReadyListener(KeyRotation keyRotation) {
+    return event -> keyRotation.rotate();
   }
 
-  // <2>
+  // runs before the ApplicationReadyEvent, so the keys are re-encoded by the time they're rotated
   @Bean
-  ApplicationListener<ApplicationReadyEvent> applicationReadyListener(
-      ApplicationEventPublisher publisher, RsaKeyPairRepository repository) {
-    return event -> {
-      if (repository.findKeyPairs().isEmpty())
-        publisher.publishEvent(new RsaKeyPairGenerationRequestEvent(Instant.now()));
+  ApplicationRunner keyStorageMigrationRunner(
+      KeyStorageMigration keyStorageMigration,
+      @Value("${jwt.key.storage-migration.enabled}") boolean enabled) {
+    return args -> {
+      if (enabled) keyStorageMigration.migrate();
     };
   }
 }
@@ -0,0 +1,85 @@
+package dev.hobie.authorization_service.keys;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.impl.ECDSA;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.util.Base64URL;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// a JWSSigner that keeps a few initialized Signatures to hand out instead of creating one per token.
+// they belong to the signer, not to the threads that used them, so a retired key's private key is
+// gone once its signer is dropped
+class PooledJwsSigner implements JWSSigner {
+
+  // enough for every core to be signing at once
+  private static final int MAX_IDLE = Runtime.getRuntime().availableProcessors();
+
+  private final JCAContext jcaContext = new JCAContext();
+
+  private final SigningKeyPair keyPair;
+
+  private final KeyAlgorithm algorithm;
+
+  private final Queue<Signature> idle = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger idleCount = new AtomicInteger();
+
+  PooledJwsSigner(SigningKeyPair keyPair) {
+    this.keyPair = keyPair;
+    this.algorithm = keyPair.algorithm();
+  }
+
+  @Override
+  public Base64URL sign(JWSHeader header, byte[] signingInput) throws JOSEException {
+    if (!this.algorithm.jwsAlgorithm().equals(header.getAlgorithm()))
+      throw new JOSEException("unsupported JWS algorithm " + header.getAlgorithm());
+    try {
+      var signature = borrow();
+      signature.update(signingInput);
+      var signed = signature.sign();
+      // a Signature that failed isn't handed out again
+      giveBack(signature);
+      // the JCA produces DER encoded ECDSA signatures but JWS wants R || S
+      if (this.algorithm == KeyAlgorithm.ES256)
+        signed = ECDSA.transcodeSignatureToConcat(signed, ECDSA.getSignatureByteArrayLength(JWSAlgorithm.ES256));
+      return Base64URL.encode(signed);
+    } catch (GeneralSecurityException e) {
+      throw new JOSEException("couldn't sign the JWT: " + e.getMessage(), e);
+    }
+  }
+
+  private Signature borrow() throws GeneralSecurityException {
+    var signature = this.idle.poll();
+    if (signature != null) {
+      this.idleCount.decrementAndGet();
+      return signature;
+    }
+    signature = Signature.getInstance(this.algorithm.signatureAlgorithm());
+    signature.initSign(this.keyPair.privateKey());
+    return signature;
+  }
+
+  // more than MAX_IDLE only happens in a burst, and those are left to the garbage collector
+  private void giveBack(Signature signature) {
+    if (this.idleCount.incrementAndGet() <= MAX_IDLE) this.idle.offer(signature);
+    else this.idleCount.decrementAndGet();
+  }
+
+  @Override
+  public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+    return Set.of(this.algorithm.jwsAlgorithm());
+  }
+
+  @Override
+  public JCAContext getJCAContext() {
+    return this.jcaContext;
+  }
+}
@@ -0,0 +1,20 @@
+package dev.hobie.authorization_service.keys;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+public class PrivateKeyConverter extends KeyConverter<PrivateKey> {
+
+  public PrivateKeyConverter(TextEncryptor textEncryptor, BytesEncryptor bytesEncryptor) {
+    super(textEncryptor, bytesEncryptor, "PRIVATE KEY");
+  }
+
+  @Override
+  protected PrivateKey generate(KeyFactory keyFactory, byte[] der) throws GeneralSecurityException {
+    return keyFactory.generatePrivate(new PKCS8EncodedKeySpec(der));
+  }
+}
@@ -0,0 +1,20 @@
+package dev.hobie.authorization_service.keys;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+public class PublicKeyConverter extends KeyConverter<PublicKey> {
+
+  public PublicKeyConverter(TextEncryptor textEncryptor, BytesEncryptor bytesEncryptor) {
+    super(textEncryptor, bytesEncryptor, "PUBLIC KEY");
+  }
+
+  @Override
+  protected PublicKey generate(KeyFactory keyFactory, byte[] der) throws GeneralSecurityException {
+    return keyFactory.generatePublic(new X509EncodedKeySpec(der));
+  }
+}
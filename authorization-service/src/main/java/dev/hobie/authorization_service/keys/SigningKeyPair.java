@@ -0,0 +1,14 @@
+package dev.hobie.authorization_service.keys;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.time.Instant;
+
+public record SigningKeyPair(
+        String id,
+        KeyAlgorithm algorithm,
+        Instant created,
+        Instant activates,
+        PublicKey publicKey,
+        PrivateKey privateKey) {
+} // <1>
@@ -0,0 +1,14 @@
+package dev.hobie.authorization_service.keys;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SigningKeyPairRepository {
+
+  List<SigningKeyPair> findKeyPairs(); // <1>
+
+  void save(SigningKeyPair rsaKeyPair); // <2>
+
+  // deletes the keys that were superseded by a key that activated before the cutoff
+  int deleteSuperseded(Instant cutoff);
+}
@@ -0,0 +1,40 @@
+package dev.hobie.authorization_service.keys;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.BiFunction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class SigningKeyPairRowMapper implements RowMapper<SigningKeyPair> {
+
+  private final PrivateKeyConverter privateKeyConverter;
+
+  private final PublicKeyConverter publicKeyConverter;
+
+  @Override
+  public SigningKeyPair mapRow(@NonNull ResultSet rs, int rowNum) throws SQLException {
+    var algorithm = KeyAlgorithm.valueOf(rs.getString("algorithm"));
+    var privateKey = loadKey(rs, "private_key", algorithm, this.privateKeyConverter::deserialize); // <1>
+    var publicKey = loadKey(rs, "public_key", algorithm, this.publicKeyConverter::deserialize); // <2>
+
+    var created = rs.getTimestamp("created").toInstant();
+    var activates = rs.getTimestamp("activates").toInstant();
+    var id = rs.getString("id"); // <3>
+
+    return new SigningKeyPair(id, algorithm, created, activates, publicKey, privateKey);
+  }
+
+  private static <T> T loadKey(
+      ResultSet rs, String fn, KeyAlgorithm algorithm, BiFunction<InputStream, KeyAlgorithm, T> f)
+      throws SQLException {
+    var keyBytes = rs.getBytes(fn);
+    return f.apply(new ByteArrayInputStream(keyBytes), algorithm);
+  }
+}
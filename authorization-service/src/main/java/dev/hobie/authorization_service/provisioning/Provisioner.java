@@ -0,0 +1,315 @@
+package dev.hobie.authorization_service.provisioning;
+
+import dev.hobie.authorization_service.BoundedPasswordEncoder;
+import dev.hobie.authorization_service.CachingRegisteredClientRepository;
+import dev.hobie.authorization_service.CachingUserDetailsManager;
+import dev.hobie.authorization_service.ClientCredentialsTokenSettings;
+import dev.hobie.authorization_service.keys.KeyAlgorithm;
+import dev.hobie.authorization_service.provisioning.ProvisioningReport.Failure;
+import dev.hobie.authorization_service.provisioning.ProvisioningRows.Row;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.server.authorization.client.JdbcRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionOperations;
+
+// imports users and registered clients in bulk. rows are read a chunk at a time; the passwords and
+// secrets in a chunk are hashed in the background on the PasswordEncoder's pool, alongside the
+// logins, and the chunk is then written with one batch per table, inserting new rows and
+// overwriting existing ones. an existing client is only changed where the row has a value, so a
+// re-import without secrets, say, keeps the stored ones. if a batch fails, the chunk is written again a row at a time, so that the
+// failure can be pinned on the row that caused it.
+@Slf4j
+@Component
+public class Provisioner {
+
+  private static final String UPSERT_USER_SQL = """
+      insert into users (username, password, enabled) values (?, ?, ?)
+      on conflict (username) do update set password = excluded.password, enabled = excluded.enabled
+      """;
+
+  private static final String UPSERT_CLIENT_SQL = """
+      insert into oauth2_registered_client (id, client_id, client_id_issued_at, client_secret,
+          client_secret_expires_at, client_name, client_authentication_methods, authorization_grant_types,
+          redirect_uris, post_logout_redirect_uris, scopes, client_settings, token_settings)
+      values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+      on conflict (id) do update set client_secret = excluded.client_secret,
+          client_secret_expires_at = excluded.client_secret_expires_at, client_name = excluded.client_name,
+          client_authentication_methods = excluded.client_authentication_methods,
+          authorization_grant_types = excluded.authorization_grant_types, redirect_uris = excluded.redirect_uris,
+          post_logout_redirect_uris = excluded.post_logout_redirect_uris, scopes = excluded.scopes,
+          client_settings = excluded.client_settings, token_settings = excluded.token_settings
+      """;
+
+  private record UserRow(Row row, String username, String password, boolean enabled, List<String> authorities) {}
+
+  private record ClientRow(Row row, RegisteredClient client) {}
+
+  private static final RowMapper<RegisteredClient> CLIENT_ROW_MAPPER =
+      new JdbcRegisteredClientRepository.RegisteredClientRowMapper();
+
+  private final JdbcTemplate jdbc;
+
+  private final TransactionOperations transactionOperations;
+
+  private final CachingUserDetailsManager users;
+
+  private final CachingRegisteredClientRepository clients;
+
+  private final int batchSize;
+
+  private final Set<KeyAlgorithm> algorithms;
+
+  private final BoundedPasswordEncoder passwordEncoder;
+
+  private final Function<RegisteredClient, List<SqlParameterValue>> clientParametersMapper =
+      new JdbcRegisteredClientRepository.RegisteredClientParametersMapper();
+
+  Provisioner(
+      JdbcTemplate jdbc,
+      TransactionOperations transactionOperations,
+      CachingUserDetailsManager users,
+      CachingRegisteredClientRepository clients,
+      BoundedPasswordEncoder passwordEncoder,
+      @Value("${provisioning.batch-size}") int batchSize,
+      @Value("${jwt.key.algorithms}") Set<KeyAlgorithm> algorithms) {
+    this.jdbc = jdbc;
+    this.transactionOperations = transactionOperations;
+    this.users = users;
+    this.clients = clients;
+    this.passwordEncoder = passwordEncoder;
+    this.batchSize = batchSize;
+    this.algorithms = algorithms;
+  }
+
+  public ProvisioningReport provisionUsers(Reader reader, ProvisioningFormat format) {
+    return provision(reader, format, this::usersChunk);
+  }
+
+  public ProvisioningReport provisionClients(Reader reader, ProvisioningFormat format) {
+    return provision(reader, format, this::clientsChunk);
+  }
+
+  private interface ChunkProvisioner {
+
+    // provisions what it can of the rows, adds a failure for each of the others, and returns how
+    // many it provisioned
+    long provision(List<Row> rows, List<Failure> failures);
+  }
+
+  private ProvisioningReport provision(Reader reader, ProvisioningFormat format, ChunkProvisioner chunkProvisioner) {
+    var started = System.nanoTime();
+    var rows = 0L;
+    var provisioned = 0L;
+    var failures = new ArrayList<Failure>();
+    try (var input = new ProvisioningRows(reader, format)) {
+      for (var chunk = input.next(this.batchSize); !chunk.isEmpty(); chunk = input.next(this.batchSize)) {
+        rows += chunk.size();
+        var parsed = new ArrayList<Row>(chunk.size());
+        for (var row : chunk) {
+          if (row.error() != null) failures.add(new Failure(row.line(), null, row.error()));
+          else parsed.add(row);
+        }
+        provisioned += chunkProvisioner.provision(parsed, failures);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    var report = ProvisioningReport.of(rows, provisioned, failures, Duration.ofNanos(System.nanoTime() - started));
+    log.info(
+        "provisioned {} of {} rows in {} ({} rows/s)",
+        report.provisioned(),
+        report.rows(),
+        report.elapsed(),
+        Math.round(report.rowsPerSecond()));
+    return report;
+  }
+
+  // users
+
+  private long usersChunk(List<Row> rows, List<Failure> failures) {
+    var hashed = new ArrayList<CompletableFuture<UserRow>>(rows.size());
+    for (var row : rows) hashed.add(hashed(() -> user(row)));
+    // the last row for a username wins
+    var users = new LinkedHashMap<String, UserRow>();
+    for (var index = 0; index < rows.size(); index++) {
+      try {
+        var user = hashed.get(index).join();
+        users.put(user.username(), user);
+      } catch (CompletionException e) {
+        failures.add(new Failure(rows.get(index).line(), rows.get(index).text("username"), reason(e.getCause())));
+      }
+    }
+    var written = write(List.copyOf(users.values()), this::writeUsers, UserRow::row, UserRow::username, failures);
+    written.forEach(user -> this.users.evict(user.username()));
+    return written.size();
+  }
+
+  private CompletableFuture<UserRow> user(Row row) {
+    var username = row.text("username");
+    if (username == null) throw new IllegalArgumentException("username is missing");
+    var password = row.text("password");
+    var encodedPassword = row.text("encoded_password");
+    if ((password == null) == (encodedPassword == null))
+      throw new IllegalArgumentException("exactly one of password and encoded_password is required");
+    var authorities = row.list("authorities");
+    var enabled = row.flag("enabled", true);
+    return (encodedPassword != null
+            ? CompletableFuture.completedFuture(encodedPassword)
+            : this.passwordEncoder.encodeInBackground(password))
+        .thenApply(hash -> new UserRow(
+            row, username, hash, enabled, authorities.isEmpty() ? List.of("ROLE_USER") : authorities));
+  }
+
+  private void writeUsers(List<UserRow> users) {
+    this.jdbc.batchUpdate(
+        UPSERT_USER_SQL,
+        users.stream().map(user -> new Object[] {user.username(), user.password(), user.enabled()}).toList());
+    this.jdbc.batchUpdate(
+        "delete from authorities where username = ?",
+        users.stream().map(user -> new Object[] {user.username()}).toList());
+    this.jdbc.batchUpdate(
+        "insert into authorities (username, authority) values (?, ?) on conflict do nothing",
+        users.stream()
+            .flatMap(user -> user.authorities().stream().map(authority -> new Object[] {user.username(), authority}))
+            .toList());
+  }
+
+  // clients
+
+  private long clientsChunk(List<Row> rows, List<Failure> failures) {
+    // an existing client keeps its id, so that everything that refers to it still does, and
+    // whatever the row doesn't mention
+    var clientIds = rows.stream().map(row -> row.text("client_id")).filter(clientId -> clientId != null).distinct().toList();
+    var stored = new LinkedHashMap<String, RegisteredClient>();
+    if (!clientIds.isEmpty())
+      this.jdbc
+          .query(
+              "select * from oauth2_registered_client where client_id = any (?)",
+              CLIENT_ROW_MAPPER,
+              (Object) clientIds.toArray(String[]::new))
+          .forEach(client -> stored.put(client.getClientId(), client));
+    var hashed = new ArrayList<CompletableFuture<ClientRow>>(rows.size());
+    for (var row : rows) hashed.add(hashed(() -> client(row, stored)));
+    var clients = new LinkedHashMap<String, ClientRow>();
+    for (var index = 0; index < rows.size(); index++) {
+      try {
+        var client = hashed.get(index).join();
+        clients.put(client.client().getClientId(), client);
+      } catch (CompletionException e) {
+        failures.add(new Failure(rows.get(index).line(), rows.get(index).text("client_id"), reason(e.getCause())));
+      }
+    }
+    var written = write(
+        List.copyOf(clients.values()), this::writeClients, ClientRow::row, client -> client.client().getClientId(), failures);
+    written.forEach(client -> this.clients.evict(client.client().getId(), client.client().getClientId()));
+    return written.size();
+  }
+
+  private CompletableFuture<ClientRow> client(Row row, Map<String, RegisteredClient> stored) {
+    var clientId = row.text("client_id");
+    if (clientId == null) throw new IllegalArgumentException("client_id is missing");
+    var existing = stored.get(clientId);
+    // a new client gets the builder's defaults
+    var builder = existing != null
+        ? RegisteredClient.from(existing)
+        : RegisteredClient.withId(UUID.randomUUID().toString())
+            .clientId(clientId)
+            .clientName(clientId)
+            .clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+            .tokenSettings(TokenSettings.builder().build());
+    if (row.has("client_name")) builder.clientName(row.text("client_name"));
+    if (row.has("authentication_methods"))
+      builder.clientAuthenticationMethods(set -> replace(set, row.list("authentication_methods"), ClientAuthenticationMethod::new));
+    if (row.has("grant_types"))
+      builder.authorizationGrantTypes(set -> replace(set, row.list("grant_types"), AuthorizationGrantType::new));
+    if (row.has("redirect_uris")) builder.redirectUris(set -> replace(set, row.list("redirect_uris"), uri -> uri));
+    if (row.has("scopes")) builder.scopes(set -> replace(set, row.list("scopes"), scope -> scope));
+    var tokenSettings = TokenSettings.withSettings(
+        (existing != null ? existing.getTokenSettings() : TokenSettings.builder().build()).getSettings());
+    if (row.has("reuse_access_tokens"))
+      tokenSettings.setting(ClientCredentialsTokenSettings.REUSE_ACCESS_TOKENS, row.flag("reuse_access_tokens", false));
+    if (row.has("stateless"))
+      tokenSettings.setting(ClientCredentialsTokenSettings.STATELESS, row.flag("stateless", false));
+    builder.tokenSettings(tokenSettings.build());
+    // checked before the secret is hashed, so that a client we'd turn away costs nothing
+    KeyAlgorithm.checkSupported(builder.build(), this.algorithms);
+    if (!row.has("client_secret")) return CompletableFuture.completedFuture(new ClientRow(row, builder.build()));
+    return this.passwordEncoder.encodeInBackground(row.text("client_secret"))
+        .thenApply(hash -> new ClientRow(row, builder.clientSecret(hash).build()));
+  }
+
+  private static <T> void replace(Set<T> set, List<String> values, Function<String, T> value) {
+    set.clear();
+    values.forEach(text -> set.add(value.apply(text)));
+  }
+
+  private void writeClients(List<ClientRow> clients) {
+    this.jdbc.batchUpdate(
+        UPSERT_CLIENT_SQL,
+        clients.stream()
+            .map(client -> this.clientParametersMapper.apply(client.client()).toArray())
+            .toList());
+  }
+
+  // writes the chunk in one transaction or, failing that, each row in its own, and returns what it wrote
+  private <T> List<T> write(
+      List<T> chunk, Consumer<List<T>> writer, Function<T, Row> row, Function<T, String> key, List<Failure> failures) {
+    if (chunk.isEmpty()) return chunk;
+    try {
+      this.transactionOperations.executeWithoutResult(status -> writer.accept(chunk));
+      return chunk;
+    } catch (DataAccessException | TransactionException e) {
+      log.debug("couldn't write a chunk of {} rows, writing them one at a time", chunk.size(), e);
+    }
+    var written = new ArrayList<T>(chunk.size());
+    for (var item : chunk) {
+      try {
+        this.transactionOperations.executeWithoutResult(status -> writer.accept(List.of(item)));
+        written.add(item);
+      } catch (DataAccessException | TransactionException e) {
+        failures.add(new Failure(row.apply(item).line(), key.apply(item), reason(e)));
+      }
+    }
+    return written;
+  }
+
+  // a row that can't be turned into one fails like one whose hashing did
+  private static <T> CompletableFuture<T> hashed(Supplier<CompletableFuture<T>> row) {
+    try {
+      return row.get();
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private static String reason(Throwable throwable) {
+    var cause = NestedExceptionUtils.getMostSpecificCause(throwable);
+    return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+  }
+}
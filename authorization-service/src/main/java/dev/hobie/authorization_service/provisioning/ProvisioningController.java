@@ -0,0 +1,33 @@
+package dev.hobie.authorization_service.provisioning;
+
+import java.io.Reader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// streams a CSV or NDJSON request body into the Provisioner and answers with its report
+@RestController
+@RequestMapping("/admin/provisioning")
+@RequiredArgsConstructor
+class ProvisioningController {
+
+  private final Provisioner provisioner;
+
+  @PostMapping(
+      value = "/users",
+      consumes = {ProvisioningFormat.CSV_VALUE, ProvisioningFormat.NDJSON_VALUE})
+  ProvisioningReport users(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, Reader body) {
+    return this.provisioner.provisionUsers(body, ProvisioningFormat.of(contentType));
+  }
+
+  @PostMapping(
+      value = "/clients",
+      consumes = {ProvisioningFormat.CSV_VALUE, ProvisioningFormat.NDJSON_VALUE})
+  ProvisioningReport clients(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType, Reader body) {
+    return this.provisioner.provisionClients(body, ProvisioningFormat.of(contentType));
+  }
+}
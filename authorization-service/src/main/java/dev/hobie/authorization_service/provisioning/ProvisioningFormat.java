@@ -0,0 +1,24 @@
+package dev.hobie.authorization_service.provisioning;
+
+import org.springframework.http.MediaType;
+
+public enum ProvisioningFormat {
+  CSV,
+  NDJSON;
+
+  public static final String CSV_VALUE = "text/csv";
+
+  public static final String NDJSON_VALUE = "application/x-ndjson";
+
+  static ProvisioningFormat of(MediaType mediaType) {
+    if (MediaType.valueOf(CSV_VALUE).includes(mediaType)) return CSV;
+    if (MediaType.valueOf(NDJSON_VALUE).includes(mediaType)) return NDJSON;
+    throw new IllegalArgumentException("can't provision from " + mediaType);
+  }
+
+  static ProvisioningFormat of(String fileName) {
+    if (fileName.endsWith(".csv")) return CSV;
+    if (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) return NDJSON;
+    throw new IllegalArgumentException("can't provision from " + fileName);
+  }
+}
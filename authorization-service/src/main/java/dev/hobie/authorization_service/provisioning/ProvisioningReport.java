@@ -0,0 +1,19 @@
+package dev.hobie.authorization_service.provisioning;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+// what became of an import: how many rows it read, how many it wrote, and why each of the others
+// wasn't written
+public record ProvisioningReport(
+    long rows, long provisioned, List<Failure> failures, Duration elapsed, double rowsPerSecond) {
+
+  public record Failure(long line, String key, String reason) {}
+
+  static ProvisioningReport of(long rows, long provisioned, List<Failure> failures, Duration elapsed) {
+    var seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+    var byLine = failures.stream().sorted(Comparator.comparingLong(Failure::line)).toList();
+    return new ProvisioningReport(rows, provisioned, byLine, elapsed, rows / seconds);
+  }
+}
@@ -0,0 +1,104 @@
+package dev.hobie.authorization_service.provisioning;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// reads rows a chunk at a time, one per line, from CSV with a header line or from NDJSON, so that
+// an import of any size only ever holds one chunk. a line that can't be parsed becomes a row with
+// an error instead of ending the import, which is also why a CSV field can't span lines.
+class ProvisioningRows implements Closeable {
+
+  record Row(long line, Map<String, Object> values, String error) {
+
+    // a blank CSV field, or an empty JSON array, is no value at all
+    boolean has(String name) {
+      return this.values.get(name) instanceof Collection<?> values ? !values.isEmpty() : text(name) != null;
+    }
+
+    String text(String name) {
+      var value = this.values.get(name);
+      return value == null || value.toString().isBlank() ? null : value.toString().trim();
+    }
+
+    // a JSON array, or a CSV field holding space separated values
+    List<String> list(String name) {
+      var value = this.values.get(name);
+      if (value instanceof Collection<?> values) return values.stream().map(Object::toString).toList();
+      var text = text(name);
+      return text == null ? List.of() : List.of(text.split("\\s+"));
+    }
+
+    boolean flag(String name, boolean defaultValue) {
+      var text = text(name);
+      return text == null ? defaultValue : Boolean.parseBoolean(text);
+    }
+  }
+
+  private static final TypeReference<Map<String, Object>> VALUES = new TypeReference<>() {};
+
+  private final BufferedReader reader;
+
+  private final ProvisioningFormat format;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final CsvMapper csvMapper = new CsvMapper();
+
+  private ObjectReader csvReader;
+
+  private long line;
+
+  ProvisioningRows(Reader reader, ProvisioningFormat format) {
+    this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    this.format = format;
+  }
+
+  // the next rows, at most max of them, or none at the end of the input
+  List<Row> next(int max) throws IOException {
+    var rows = new ArrayList<Row>(max);
+    while (rows.size() < max) {
+      var text = this.reader.readLine();
+      if (text == null) break;
+      this.line++;
+      if (text.isBlank()) continue;
+      if (this.format == ProvisioningFormat.CSV && this.csvReader == null) {
+        this.csvReader = header(text);
+        continue;
+      }
+      rows.add(parse(text));
+    }
+    return rows;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.reader.close();
+  }
+
+  private ObjectReader header(String text) {
+    var schema = CsvSchema.builder();
+    for (var column : text.split(",")) schema.addColumn(column.trim());
+    return this.csvMapper.readerFor(VALUES).with(schema.build());
+  }
+
+  private Row parse(String text) {
+    try {
+      var reader = this.format == ProvisioningFormat.CSV ? this.csvReader : this.objectMapper.readerFor(VALUES);
+      return new Row(this.line, reader.readValue(text), null);
+    } catch (JsonProcessingException e) {
+      return new Row(this.line, Map.of(), e.getOriginalMessage());
+    }
+  }
+}
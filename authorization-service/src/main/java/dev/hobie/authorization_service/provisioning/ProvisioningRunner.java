@@ -0,0 +1,50 @@
+package dev.hobie.authorization_service.provisioning;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+// imports the files named on the command line, for example
+// --provision.users=users.csv --provision.clients=clients.ndjson, and logs what became of each row
+// that failed. without those options it does nothing.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class ProvisioningRunner implements ApplicationRunner {
+
+  private final Provisioner provisioner;
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    for (var file : values(args, "provision.users"))
+      try (var reader = Files.newBufferedReader(Path.of(file))) {
+        report(file, this.provisioner.provisionUsers(reader, ProvisioningFormat.of(file)));
+      }
+    for (var file : values(args, "provision.clients"))
+      try (var reader = Files.newBufferedReader(Path.of(file))) {
+        report(file, this.provisioner.provisionClients(reader, ProvisioningFormat.of(file)));
+      }
+  }
+
+  private static Iterable<String> values(ApplicationArguments args, String option) {
+    var values = args.getOptionValues(option);
+    return values == null ? List.of() : values;
+  }
+
+  private static void report(String file, ProvisioningReport report) {
+    report.failures().forEach(failure -> log.warn(
+        "{}:{} ({}) wasn't provisioned: {}", file, failure.line(), failure.key(), failure.reason()));
+    log.info(
+        "{}: provisioned {} of {} rows in {} ({} rows/s)",
+        file,
+        report.provisioned(),
+        report.rows(),
+        report.elapsed(),
+        Math.round(report.rowsPerSecond()));
+  }
+}
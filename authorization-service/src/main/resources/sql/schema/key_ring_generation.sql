@@ -0,0 +1,6 @@
+create table if not exists key_ring_generation
+(
+    id         int    not null primary key check ( id = 1 ),
+    generation bigint not null
+);
+insert into key_ring_generation (id, generation) values (1, 0) on conflict do nothing;
@@ -5,33 +5,69 @@ create table if not exists oauth2_authorization
     principal_name                varchar(200) NOT NULL,
     authorization_grant_type      varchar(100) NOT NULL,
     authorized_scopes             varchar(1000) DEFAULT NULL,
-    attributes                    text          DEFAULT NULL,
+    attributes                    bytea         DEFAULT NULL,
     state                         varchar(500)  DEFAULT NULL,
     authorization_code_value      text          DEFAULT NULL,
     authorization_code_issued_at  timestamp     DEFAULT NULL,
     authorization_code_expires_at timestamp     DEFAULT NULL,
-    authorization_code_metadata   text          DEFAULT NULL,
+    authorization_code_metadata   bytea         DEFAULT NULL,
     access_token_value            text          DEFAULT NULL,
     access_token_issued_at        timestamp     DEFAULT NULL,
     access_token_expires_at       timestamp     DEFAULT NULL,
-    access_token_metadata         text          DEFAULT NULL,
+    access_token_metadata         bytea         DEFAULT NULL,
     access_token_type             varchar(100)  DEFAULT NULL,
     access_token_scopes           varchar(1000) DEFAULT NULL,
     oidc_id_token_value           text          DEFAULT NULL,
     oidc_id_token_issued_at       timestamp     DEFAULT NULL,
     oidc_id_token_expires_at      timestamp     DEFAULT NULL,
-    oidc_id_token_metadata        text          DEFAULT NULL,
+    oidc_id_token_metadata        bytea         DEFAULT NULL,
     refresh_token_value           text          DEFAULT NULL,
     refresh_token_issued_at       timestamp     DEFAULT NULL,
     refresh_token_expires_at      timestamp     DEFAULT NULL,
-    refresh_token_metadata        text          DEFAULT NULL,
+    refresh_token_metadata        bytea         DEFAULT NULL,
     user_code_value               text          DEFAULT NULL,
     user_code_issued_at           timestamp     DEFAULT NULL,
     user_code_expires_at          timestamp     DEFAULT NULL,
-    user_code_metadata            text          DEFAULT NULL,
+    user_code_metadata            bytea         DEFAULT NULL,
     device_code_value             text          DEFAULT NULL,
     device_code_issued_at         timestamp     DEFAULT NULL,
     device_code_expires_at        timestamp     DEFAULT NULL,
-    device_code_metadata          text          DEFAULT NULL,
+    device_code_metadata          bytea         DEFAULT NULL,
     PRIMARY KEY (id)
 );
+alter table oauth2_authorization add column if not exists authorization_code_digest bytea;
+alter table oauth2_authorization add column if not exists access_token_digest bytea;
+alter table oauth2_authorization add column if not exists refresh_token_digest bytea;
+alter table oauth2_authorization add column if not exists state_digest bytea;
+alter table oauth2_authorization add column if not exists oidc_id_token_digest bytea;
+alter table oauth2_authorization add column if not exists user_code_digest bytea;
+alter table oauth2_authorization add column if not exists device_code_digest bytea;
+alter table oauth2_authorization add column if not exists expires_at timestamp;
+alter table oauth2_authorization add column if not exists created_at timestamp not null default localtimestamp;
+create or replace function oauth2_authorization_token_digests() returns trigger language plpgsql as
+'begin
+    new.authorization_code_digest := sha256(convert_to(new.authorization_code_value, ''UTF8''));
+    new.access_token_digest := sha256(convert_to(new.access_token_value, ''UTF8''));
+    new.refresh_token_digest := sha256(convert_to(new.refresh_token_value, ''UTF8''));
+    new.state_digest := sha256(convert_to(new.state, ''UTF8''));
+    new.oidc_id_token_digest := sha256(convert_to(new.oidc_id_token_value, ''UTF8''));
+    new.user_code_digest := sha256(convert_to(new.user_code_value, ''UTF8''));
+    new.device_code_digest := sha256(convert_to(new.device_code_value, ''UTF8''));
+    new.expires_at := greatest(new.authorization_code_expires_at, new.access_token_expires_at,
+        new.oidc_id_token_expires_at, new.refresh_token_expires_at, new.user_code_expires_at,
+        new.device_code_expires_at);
+    return new;
+end';
+drop trigger if exists oauth2_authorization_token_digests on oauth2_authorization;
+create trigger oauth2_authorization_token_digests
+    before insert or update on oauth2_authorization
+    for each row execute function oauth2_authorization_token_digests();
+create index if not exists oauth2_authorization_authorization_code_digest_idx on oauth2_authorization (authorization_code_digest);
+create index if not exists oauth2_authorization_access_token_digest_idx on oauth2_authorization (access_token_digest);
+create index if not exists oauth2_authorization_refresh_token_digest_idx on oauth2_authorization (refresh_token_digest);
+create index if not exists oauth2_authorization_state_digest_idx on oauth2_authorization (state_digest) where state_digest is not null;
+create index if not exists oauth2_authorization_oidc_id_token_digest_idx on oauth2_authorization (oidc_id_token_digest) where oidc_id_token_digest is not null;
+create index if not exists oauth2_authorization_user_code_digest_idx on oauth2_authorization (user_code_digest) where user_code_digest is not null;
+create index if not exists oauth2_authorization_device_code_digest_idx on oauth2_authorization (device_code_digest) where device_code_digest is not null;
+create index if not exists oauth2_authorization_expires_at_idx on oauth2_authorization (expires_at);
+create index if not exists oauth2_authorization_created_at_idx on oauth2_authorization (created_at) where expires_at is null;
@@ -0,0 +1,13 @@
+create table if not exists oauth2_client_credentials_token
+(
+    token_digest         bytea         NOT NULL,
+    authorization_id     varchar(100)  NOT NULL,
+    registered_client_id varchar(100)  NOT NULL,
+    principal_name       varchar(200)  NOT NULL,
+    scopes               varchar(1000) DEFAULT NULL,
+    issued_at            timestamp     NOT NULL,
+    expires_at           timestamp     NOT NULL,
+    revoked_at           timestamp     DEFAULT NULL,
+    PRIMARY KEY (token_digest)
+);
+create index if not exists oauth2_client_credentials_token_expires_at_idx on oauth2_client_credentials_token (expires_at);
@@ -1,8 +1,17 @@
 create table if not exists rsa_key_pairs
 (
     id          varchar(1000) not null primary key,
-    private_key text          not null,
-    public_key  text          not null,
-    created     date          not null,
+    algorithm   varchar(16)   not null default 'RS256',
+    private_key bytea         not null,
+    public_key  bytea         not null,
+    created     timestamp     not null,
+    activates   timestamp     not null default localtimestamp,
     unique (id, created )
-);
\ No newline at end of file
+);
+alter table rsa_key_pairs add column if not exists activates timestamp;
+alter table rsa_key_pairs add column if not exists algorithm varchar(16) not null default 'RS256';
+alter table rsa_key_pairs alter column created type timestamp;
+update rsa_key_pairs set activates = created where activates is null;
+alter table rsa_key_pairs alter column activates set not null;
+alter table rsa_key_pairs alter column activates set default localtimestamp;
+create index if not exists rsa_key_pairs_algorithm_activates_idx on rsa_key_pairs (algorithm, activates);
@@ -0,0 +1,132 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// runs the reaper's deletes against the PostgreSQL database in application.yml
+@SpringBootTest
+class AuthorizationReaperTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private AuthorizationReaper reaper;
+
+	private final String suffix = UUID.randomUUID().toString();
+
+	private final Instant now = Instant.now();
+
+	@Test
+	void deletesExpiredAuthorizationsAndKeepsTheRest() {
+		authorization("expired", this.now.minus(Duration.ofMinutes(1)), this.now.minus(Duration.ofHours(1)));
+		authorization("live", this.now.plus(Duration.ofMinutes(5)), this.now.minus(Duration.ofHours(1)));
+		authorization("abandoned", null, this.now.minus(Duration.ofDays(2)));
+		authorization("pending", null, this.now);
+
+		this.reaper.reap();
+
+		assertThat(exists("oauth2_authorization", "id", "expired")).isFalse();
+		assertThat(exists("oauth2_authorization", "id", "live")).isTrue();
+		assertThat(exists("oauth2_authorization", "id", "abandoned")).isFalse();
+		assertThat(exists("oauth2_authorization", "id", "pending")).isTrue();
+		this.jdbc.update("delete from oauth2_authorization where id in (?, ?)", id("live"), id("pending"));
+	}
+
+	@Test
+	void deletesConsentsWhoseClientOrUserIsGone() {
+		this.jdbc.update("""
+				insert into oauth2_registered_client (id, client_id, client_name, client_authentication_methods,
+				    authorization_grant_types, scopes, client_settings, token_settings)
+				values (?, ?, 'reaper', 'client_secret_basic', 'authorization_code', 'openid', '{}', '{}')
+				""", id("client"), id("client"));
+		this.jdbc.update("insert into users (username, password, enabled) values (?, '{noop}password', true)",
+				id("user"));
+		consent("client", "user");
+		consent("gone-client", "user");
+		consent("client", "gone-user");
+
+		this.reaper.reap();
+
+		assertThat(consents("client", "user")).isOne();
+		assertThat(consents("gone-client", "user")).isZero();
+		assertThat(consents("client", "gone-user")).isZero();
+		this.jdbc.update("delete from oauth2_authorization_consent where registered_client_id = ?", id("client"));
+		this.jdbc.update("delete from oauth2_registered_client where id = ?", id("client"));
+		this.jdbc.update("delete from users where username = ?", id("user"));
+	}
+
+	@Test
+	void deletesExpiredSessionsWithTheirAttributes() {
+		session("expired", this.now.minus(Duration.ofMinutes(1)));
+		session("live", this.now.plus(Duration.ofMinutes(30)));
+
+		this.reaper.reap();
+
+		assertThat(exists("spring_session", "primary_id", "expired")).isFalse();
+		assertThat(exists("spring_session_attributes", "session_primary_id", "expired")).isFalse();
+		assertThat(exists("spring_session", "primary_id", "live")).isTrue();
+		assertThat(exists("spring_session_attributes", "session_primary_id", "live")).isTrue();
+		this.jdbc.update("delete from spring_session where primary_id = ?", sessionId("live"));
+	}
+
+	private String id(String name) {
+		return name + "-" + this.suffix;
+	}
+
+	// spring_session's ids are exactly 36 characters
+	private String sessionId(String name) {
+		return UUID.nameUUIDFromBytes(id(name).getBytes()).toString();
+	}
+
+	private void authorization(String name, Instant accessTokenExpiresAt, Instant createdAt) {
+		this.jdbc.update("""
+				insert into oauth2_authorization (id, registered_client_id, principal_name, authorization_grant_type,
+				    access_token_value, access_token_issued_at, access_token_expires_at, created_at)
+				values (?, 'client', 'jlong', 'authorization_code', ?, ?, ?, ?)
+				""", id(name), accessTokenExpiresAt != null ? id(name) : null,
+				accessTokenExpiresAt != null ? Timestamp.from(createdAt) : null,
+				accessTokenExpiresAt != null ? Timestamp.from(accessTokenExpiresAt) : null, Timestamp.from(createdAt));
+	}
+
+	private void consent(String client, String user) {
+		this.jdbc.update("""
+				insert into oauth2_authorization_consent (registered_client_id, principal_name, authorities)
+				values (?, ?, 'SCOPE_openid')
+				""", id(client), id(user));
+	}
+
+	private int consents(String client, String user) {
+		return this.jdbc.queryForObject("""
+				select count(*) from oauth2_authorization_consent where registered_client_id = ? and principal_name = ?
+				""", Integer.class, id(client), id(user));
+	}
+
+	private void session(String name, Instant expires) {
+		var primaryId = sessionId(name);
+		this.jdbc.update("""
+				insert into spring_session (primary_id, session_id, creation_time, last_access_time,
+				    max_inactive_interval, expiry_time)
+				values (?, ?, ?, ?, 1800, ?)
+				""", primaryId, primaryId, this.now.toEpochMilli(), this.now.toEpochMilli(), expires.toEpochMilli());
+		this.jdbc.update("""
+				insert into spring_session_attributes (session_primary_id, attribute_name, attribute_bytes)
+				values (?, 'name', ?)
+				""", primaryId, new byte[] { 1 });
+	}
+
+	private boolean exists(String table, String column, String name) {
+		var id = table.startsWith("spring_session") ? sessionId(name) : id(name);
+		return this.jdbc.queryForObject("select exists (select 1 from " + table + " where " + column + " = ?)",
+				Boolean.class, id);
+	}
+
+}
@@ -0,0 +1,92 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class BoundedPasswordEncoderTests {
+
+	private final CountDownLatch started = new CountDownLatch(1);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final PasswordEncoder delegate = new PasswordEncoder() {
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			return "{noop}" + rawPassword;
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return encode(rawPassword).equals(encodedPassword);
+		}
+	};
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(this.delegate, 1, 1, 1,
+			Duration.ofSeconds(2), this.meterRegistry);
+
+	@AfterEach
+	void close() {
+		this.release.countDown();
+		this.encoder.close();
+	}
+
+	@Test
+	void turnsPasswordsAwayOnceThePoolAndQueueAreFull() throws Exception {
+		var hashing = CompletableFuture.supplyAsync(() -> this.encoder.matches("secret", "{noop}secret"));
+		assertThat(this.started.await(10, TimeUnit.SECONDS)).isTrue();
+		var queued = CompletableFuture.supplyAsync(() -> this.encoder.matches("secret", "{noop}secret"));
+		while (this.meterRegistry.get("password.hashing.queued").gauge().value() < 1) {
+			Thread.onSpinWait();
+		}
+
+		assertThatExceptionOfType(PasswordHashingSaturatedException.class)
+			.isThrownBy(() -> this.encoder.matches("secret", "{noop}secret"))
+			.satisfies(e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(2)));
+
+		this.release.countDown();
+		assertThat(hashing.get(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(queued.get(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.meterRegistry.get("password.hashing.rejections").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void backgroundWorkWaitsForRoomInsteadOfBeingTurnedAway() throws Exception {
+		var hashing = CompletableFuture.supplyAsync(() -> this.encoder.matches("secret", "{noop}secret"));
+		assertThat(this.started.await(10, TimeUnit.SECONDS)).isTrue();
+		var queued = CompletableFuture.supplyAsync(() -> this.encoder.matches("secret", "{noop}secret"));
+		while (this.meterRegistry.get("password.hashing.queued").gauge().value() < 1) {
+			Thread.onSpinWait();
+		}
+
+		var encoded = CompletableFuture.supplyAsync(() -> this.encoder.encodeInBackground("secret"))
+			.thenCompose(future -> future);
+		Thread.sleep(100);
+		assertThat(encoded).isNotDone();
+
+		this.release.countDown();
+		assertThat(encoded.get(10, TimeUnit.SECONDS)).isEqualTo("{noop}secret");
+		assertThat(hashing.get(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(queued.get(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.meterRegistry.get("password.hashing.rejections").counter().count()).isZero();
+	}
+
+}
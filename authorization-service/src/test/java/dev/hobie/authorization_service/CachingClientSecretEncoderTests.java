@@ -0,0 +1,56 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class CachingClientSecretEncoderTests {
+
+	private final AtomicInteger checks = new AtomicInteger();
+
+	private final PasswordEncoder delegate = new PasswordEncoder() {
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			return "{noop}" + rawPassword;
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			checks.incrementAndGet();
+			return encode(rawPassword).equals(encodedPassword);
+		}
+	};
+
+	private final CachingClientSecretEncoder encoder = new CachingClientSecretEncoder(this.delegate,
+			Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+
+	@Test
+	void repeatedMatchesAreServedFromTheCache() {
+		assertThat(this.encoder.matches("secret", "{noop}secret")).isTrue();
+		assertThat(this.encoder.matches("secret", "{noop}secret")).isTrue();
+
+		assertThat(this.checks).hasValue(1);
+	}
+
+	@Test
+	void failedMatchesAreNotCached() {
+		assertThat(this.encoder.matches("guess", "{noop}secret")).isFalse();
+		assertThat(this.encoder.matches("guess", "{noop}secret")).isFalse();
+
+		assertThat(this.checks).hasValue(2);
+	}
+
+	@Test
+	void aChangedSecretIsCheckedAgain() {
+		assertThat(this.encoder.matches("secret", "{noop}secret")).isTrue();
+
+		assertThat(this.encoder.matches("secret", "{noop}rotated")).isFalse();
+		assertThat(this.checks).hasValue(2);
+	}
+
+}
@@ -0,0 +1,79 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationConsent;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationConsentService;
+
+class CachingOAuth2AuthorizationConsentServiceTests {
+
+	private final AtomicInteger queries = new AtomicInteger();
+
+	private final Map<String, OAuth2AuthorizationConsent> store = new HashMap<>();
+
+	private final OAuth2AuthorizationConsentService delegate = new OAuth2AuthorizationConsentService() {
+
+		@Override
+		public void save(OAuth2AuthorizationConsent authorizationConsent) {
+			store.put(authorizationConsent.getRegisteredClientId() + authorizationConsent.getPrincipalName(),
+					authorizationConsent);
+		}
+
+		@Override
+		public void remove(OAuth2AuthorizationConsent authorizationConsent) {
+			store.remove(authorizationConsent.getRegisteredClientId() + authorizationConsent.getPrincipalName());
+		}
+
+		@Override
+		public OAuth2AuthorizationConsent findById(String registeredClientId, String principalName) {
+			queries.incrementAndGet();
+			return store.get(registeredClientId + principalName);
+		}
+	};
+
+	private final CachingOAuth2AuthorizationConsentService service = new CachingOAuth2AuthorizationConsentService(
+			this.delegate, Duration.ofMinutes(5), Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+
+	@Test
+	void repeatedLookupsAreServedFromTheCache() {
+		this.delegate.save(consent("jlong"));
+
+		assertThat(this.service.findById("1", "jlong")).isNotNull();
+		assertThat(this.service.findById("1", "jlong")).isNotNull();
+
+		assertThat(this.queries).hasValue(1);
+	}
+
+	@Test
+	void missingConsentsAreCachedToo() {
+		assertThat(this.service.findById("1", "jlong")).isNull();
+		assertThat(this.service.findById("1", "jlong")).isNull();
+
+		assertThat(this.queries).hasValue(1);
+	}
+
+	@Test
+	void savingAndRemovingReplaceTheCachedAnswer() {
+		assertThat(this.service.findById("1", "jlong")).isNull();
+
+		this.service.save(consent("jlong"));
+		assertThat(this.service.findById("1", "jlong").getScopes()).containsExactly("user.read");
+		assertThat(this.service.findById("1", "rwinch")).isNull();
+
+		this.service.remove(consent("jlong"));
+		assertThat(this.service.findById("1", "jlong")).isNull();
+		assertThat(this.store).isEmpty();
+		assertThat(this.queries).hasValue(2);
+	}
+
+	private static OAuth2AuthorizationConsent consent(String principalName) {
+		return OAuth2AuthorizationConsent.withId("1", principalName).scope("user.read").build();
+	}
+
+}
@@ -0,0 +1,98 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.server.authorization.InMemoryOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+class CachingOAuth2AuthorizationServiceTests {
+
+	private final AtomicInteger tokenQueries = new AtomicInteger();
+
+	private final InMemoryOAuth2AuthorizationService store = new InMemoryOAuth2AuthorizationService();
+
+	private final OAuth2AuthorizationService delegate = new OAuth2AuthorizationService() {
+
+		@Override
+		public void save(OAuth2Authorization authorization) {
+			store.save(authorization);
+		}
+
+		@Override
+		public void remove(OAuth2Authorization authorization) {
+			store.remove(authorization);
+		}
+
+		@Override
+		public OAuth2Authorization findById(String id) {
+			return store.findById(id);
+		}
+
+		@Override
+		public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
+			tokenQueries.incrementAndGet();
+			return store.findByToken(token, tokenType);
+		}
+	};
+
+	private final CachingOAuth2AuthorizationService service = new CachingOAuth2AuthorizationService(
+			this.delegate, Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+
+	@Test
+	void repeatedAccessTokenLookupsAreServedFromTheCache() {
+		this.delegate.save(authorization("access-1", "refresh-1"));
+
+		assertThat(this.service.findByToken("access-1", OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+		assertThat(this.service.findByToken("access-1", OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+		assertThat(this.service.findByToken("access-1", null)).isNotNull();
+
+		assertThat(this.tokenQueries).hasValue(1);
+	}
+
+	@Test
+	void savingAnAuthorizationReplacesItsTokens() {
+		this.service.save(authorization("access-1", "refresh-1"));
+		this.service.save(authorization("access-2", "refresh-1"));
+
+		assertThat(this.service.findByToken("access-1", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+		assertThat(this.service.findByToken("access-2", OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+	}
+
+	@Test
+	void refreshTokenLookupsAlwaysGoToTheDelegate() {
+		this.service.save(authorization("access-1", "refresh-1"));
+
+		this.service.findByToken("refresh-1", OAuth2TokenType.REFRESH_TOKEN);
+		this.service.findByToken("refresh-1", OAuth2TokenType.REFRESH_TOKEN);
+
+		assertThat(this.tokenQueries).hasValue(2);
+	}
+
+	private static OAuth2Authorization authorization(String accessToken, String refreshToken) {
+		var client = RegisteredClient.withId("crm-id")
+				.clientId("crm")
+				.authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+				.redirectUri("http://127.0.0.1:8082/login/oauth2/code/spring")
+				.build();
+		var now = Instant.now();
+		return OAuth2Authorization.withRegisteredClient(client)
+				.id("authorization-1")
+				.principalName("jlong")
+				.authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+				.accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, accessToken, now, now.plusSeconds(300)))
+				.refreshToken(new OAuth2RefreshToken(refreshToken, now, now.plusSeconds(3600)))
+				.build();
+	}
+
+}
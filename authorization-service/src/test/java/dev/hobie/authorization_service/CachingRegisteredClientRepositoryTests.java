@@ -0,0 +1,119 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
+
+class CachingRegisteredClientRepositoryTests {
+
+	private final AtomicInteger clientIdQueries = new AtomicInteger();
+
+	private final Map<String, RegisteredClient> store = new HashMap<>();
+
+	private final RegisteredClientRepository delegate = new RegisteredClientRepository() {
+
+		@Override
+		public void save(RegisteredClient registeredClient) {
+			store.put(registeredClient.getId(), registeredClient);
+		}
+
+		@Override
+		public RegisteredClient findById(String id) {
+			return store.get(id);
+		}
+
+		@Override
+		public RegisteredClient findByClientId(String clientId) {
+			clientIdQueries.incrementAndGet();
+			return store.values().stream().filter(client -> client.getClientId().equals(clientId)).findFirst().orElse(null);
+		}
+	};
+
+	private final CachingRegisteredClientRepository repository = new CachingRegisteredClientRepository(this.delegate,
+			Duration.ofMinutes(10), Duration.ofSeconds(10), Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+
+	@Test
+	void repeatedLookupsAreServedFromTheCache() {
+		this.delegate.save(client("crm"));
+
+		assertThat(this.repository.findByClientId("crm")).isNotNull();
+		assertThat(this.repository.findByClientId("crm")).isNotNull();
+
+		assertThat(this.clientIdQueries).hasValue(1);
+	}
+
+	@Test
+	void unknownClientIdsAreCachedToo() {
+		assertThat(this.repository.findByClientId("nope")).isNull();
+		assertThat(this.repository.findByClientId("nope")).isNull();
+
+		assertThat(this.clientIdQueries).hasValue(1);
+	}
+
+	@Test
+	void savingAClientReplacesItUnderItsOldAndNewClientIds() {
+		this.repository.save(client("crm"));
+		assertThat(this.repository.findByClientId("crm")).isNotNull();
+		assertThat(this.repository.findByClientId("erp")).isNull();
+
+		this.repository.save(client("erp"));
+
+		assertThat(this.repository.findByClientId("crm")).isNull();
+		assertThat(this.repository.findByClientId("erp")).isNotNull();
+		assertThat(this.repository.findById("1").getClientId()).isEqualTo("erp");
+	}
+
+	@Test
+	void evictingAClientDropsWhatItsClientIdFound() {
+		this.delegate.save(client("crm", "secret"));
+		assertThat(this.repository.findByClientId("crm").getClientSecret()).isEqualTo("secret");
+
+		this.delegate.save(client("crm", "rotated"));
+		this.repository.evict("1", "crm");
+
+		assertThat(this.repository.findByClientId("crm").getClientSecret()).isEqualTo("rotated");
+	}
+
+	@Test
+	void evictingAClientDropsAnUnknownClientIdAnswer() {
+		assertThat(this.repository.findByClientId("crm")).isNull();
+
+		this.delegate.save(client("crm"));
+		this.repository.evict("1", "crm");
+
+		assertThat(this.repository.findByClientId("crm")).isNotNull();
+	}
+
+	@Test
+	void evictingARenamedClientDropsItsOldClientId() {
+		this.delegate.save(client("crm"));
+		assertThat(this.repository.findByClientId("crm")).isNotNull();
+
+		this.delegate.save(client("erp"));
+		this.repository.evict("1", "erp");
+
+		assertThat(this.repository.findByClientId("crm")).isNull();
+		assertThat(this.repository.findByClientId("erp")).isNotNull();
+	}
+
+	private static RegisteredClient client(String clientId) {
+		return client(clientId, null);
+	}
+
+	private static RegisteredClient client(String clientId, String clientSecret) {
+		return RegisteredClient.withId("1")
+			.clientId(clientId)
+			.clientSecret(clientSecret)
+			.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+			.build();
+	}
+
+}
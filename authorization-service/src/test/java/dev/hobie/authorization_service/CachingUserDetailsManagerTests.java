@@ -0,0 +1,64 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+class CachingUserDetailsManagerTests {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final InMemoryUserDetailsManager delegate = new InMemoryUserDetailsManager() {
+
+		@Override
+		public UserDetails loadUserByUsername(String username) {
+			loads.incrementAndGet();
+			return super.loadUserByUsername(username);
+		}
+	};
+
+	private final CachingUserDetailsManager manager = new CachingUserDetailsManager(this.delegate,
+			Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+
+	@Test
+	void repeatedLoadsAreServedFromTheCache() {
+		this.manager.createUser(user("{noop}password"));
+
+		this.manager.loadUserByUsername("jlong");
+		this.manager.loadUserByUsername("jlong");
+
+		assertThat(this.loads).hasValue(1);
+	}
+
+	@Test
+	void erasingTheCredentialsOfALoadedUserLeavesTheCacheAlone() {
+		this.manager.createUser(user("{noop}password"));
+
+		((CredentialsContainer) this.manager.loadUserByUsername("jlong")).eraseCredentials();
+
+		assertThat(this.manager.loadUserByUsername("jlong").getPassword()).isEqualTo("{noop}password");
+	}
+
+	@Test
+	void updatingAUserEvictsIt() {
+		this.manager.createUser(user("{noop}password"));
+		this.manager.loadUserByUsername("jlong");
+
+		this.manager.updateUser(user("{noop}changed"));
+
+		assertThat(this.manager.loadUserByUsername("jlong").getPassword()).isEqualTo("{noop}changed");
+		assertThat(this.loads).hasValue(2);
+	}
+
+	private static UserDetails user(String password) {
+		return User.withUsername("jlong").password(password).roles("USER").build();
+	}
+
+}
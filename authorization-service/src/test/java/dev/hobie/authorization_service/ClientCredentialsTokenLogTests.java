@@ -0,0 +1,132 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcOperations;
+
+class ClientCredentialsTokenLogTests {
+
+	private final List<Integer> batches = new CopyOnWriteArrayList<>();
+
+	private final AtomicInteger failures = new AtomicInteger();
+
+	private volatile Supplier<RuntimeException> failure = () -> new TransientDataAccessResourceException(
+			"the database is down");
+
+	private final JdbcOperations jdbc = mock(JdbcOperations.class);
+
+	{
+		when(this.jdbc.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+			if (this.failures.getAndUpdate(failures -> Math.max(0, failures - 1)) > 0)
+				throw this.failure.get();
+			this.batches.add(invocation.<List<?>>getArgument(1).size());
+			return new int[0];
+		});
+	}
+
+	private static ClientCredentialsTokenLog.Entry entry(int index) {
+		var now = Instant.now();
+		return new ClientCredentialsTokenLog.Entry(new byte[] { (byte) index }, "id-" + index, "client", "crm",
+				"user.read", now, now.plusSeconds(300), null);
+	}
+
+	@Test
+	void writesEverythingInBatchesByTheTimeItsClosed() throws Exception {
+		try (var tokenLog = new ClientCredentialsTokenLog(this.jdbc, 100, 10, 10, Duration.ofMillis(10),
+				new SimpleMeterRegistry())) {
+			for (var index = 0; index < 25; index++)
+				tokenLog.append(entry(index));
+		}
+
+		assertThat(this.batches).allMatch(size -> size <= 10);
+		assertThat(this.batches.stream().mapToInt(Integer::intValue).sum()).isEqualTo(25);
+	}
+
+	@Test
+	void theCallerWritesWhenTheQueueIsFull() throws Exception {
+		try (var tokenLog = new ClientCredentialsTokenLog(this.jdbc, 1, 10, 10, Duration.ofMillis(10),
+				new SimpleMeterRegistry())) {
+			for (var index = 0; index < 50; index++)
+				tokenLog.append(entry(index));
+		}
+
+		assertThat(this.batches.stream().mapToInt(Integer::intValue).sum()).isEqualTo(50);
+	}
+
+	@Test
+	void writesAFailedBatchAgain() throws Exception {
+		try (var tokenLog = new ClientCredentialsTokenLog(this.jdbc, 100, 10, 10, Duration.ofMillis(10),
+				new SimpleMeterRegistry())) {
+			// the batch, and then each of its entries the first time round
+			this.failures.set(30);
+			for (var index = 0; index < 25; index++)
+				tokenLog.append(entry(index));
+			await().atMost(Duration.ofSeconds(5)).until(() -> this.failures.get() == 0);
+		}
+
+		assertThat(this.batches.stream().mapToInt(Integer::intValue).sum()).isEqualTo(25);
+	}
+
+	@Test
+	void appendsThatRaceCloseAreStillWritten() throws Exception {
+		var tokenLog = new ClientCredentialsTokenLog(this.jdbc, 1000, 10, 10, Duration.ofMillis(10),
+				new SimpleMeterRegistry());
+		var appender = new Thread(() -> {
+			for (var index = 0; index < 500; index++)
+				tokenLog.append(entry(index));
+		});
+		appender.start();
+		tokenLog.close();
+		appender.join();
+
+		assertThat(this.batches.stream().mapToInt(Integer::intValue).sum()).isEqualTo(500);
+	}
+
+
+	@Test
+	void keepsWritingAfterAnUnexpectedException() throws Exception {
+		this.failure = () -> new IllegalStateException("not a DataAccessException");
+		try (var tokenLog = new ClientCredentialsTokenLog(this.jdbc, 100, 10, 10, Duration.ofMillis(10),
+				new SimpleMeterRegistry())) {
+			this.failures.set(3);
+			for (var index = 0; index < 5; index++)
+				tokenLog.append(entry(index));
+			await().atMost(Duration.ofSeconds(5)).until(() -> this.failures.get() == 0);
+			tokenLog.append(entry(5));
+		}
+
+		assertThat(this.batches.stream().mapToInt(Integer::intValue).sum()).isEqualTo(6);
+	}
+
+	@Test
+	void givesUpOnAnEntryThatKeepsFailing() throws Exception {
+		var meterRegistry = new SimpleMeterRegistry();
+		try (var tokenLog = new ClientCredentialsTokenLog(this.jdbc, 100, 10, 3, Duration.ofMillis(10),
+				meterRegistry)) {
+			this.failures.set(Integer.MAX_VALUE);
+			tokenLog.append(entry(0));
+			var lost = meterRegistry.get("oauth2.client-credentials.log.failures").counter();
+			await().atMost(Duration.ofSeconds(5)).until(() -> lost.count() == 1);
+			// it's out of the queue for good
+			assertThat(Integer.MAX_VALUE - this.failures.get()).isEqualTo(3);
+			this.failures.set(0);
+		}
+
+		assertThat(this.batches).isEmpty();
+	}
+
+}
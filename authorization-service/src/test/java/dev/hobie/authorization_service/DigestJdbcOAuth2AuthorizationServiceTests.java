@@ -0,0 +1,74 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2DeviceCode;
+import org.springframework.security.oauth2.core.OAuth2UserCode;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.InMemoryRegisteredClientRepository;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+// finds authorizations by their digests in the PostgreSQL database in application.yml
+@SpringBootTest
+class DigestJdbcOAuth2AuthorizationServiceTests {
+
+	private final RegisteredClient client = RegisteredClient.withId(UUID.randomUUID().toString())
+		.clientId("digests")
+		.clientAuthenticationMethod(ClientAuthenticationMethod.NONE)
+		.authorizationGrantType(AuthorizationGrantType.DEVICE_CODE)
+		.build();
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void findsTheStateAndEveryKindOfTokenByItsDigest() {
+		var clients = new InMemoryRegisteredClientRepository(this.client);
+		var attributeCodec = new JsonAttributeCodec();
+		var service = new DigestJdbcOAuth2AuthorizationService(this.jdbc, clients);
+		service.setAuthorizationRowMapper(new AuthorizationRowMapper(clients, attributeCodec));
+		service.setAuthorizationParametersMapper(new AuthorizationParametersMapper(attributeCodec));
+		var now = Instant.now();
+		var id = UUID.randomUUID().toString();
+		var claims = new HashMap<String, Object>(Map.of("sub", "jlong"));
+		var authorization = OAuth2Authorization.withRegisteredClient(this.client)
+			.id(id)
+			.principalName("jlong")
+			.authorizationGrantType(AuthorizationGrantType.DEVICE_CODE)
+			.attribute(OAuth2ParameterNames.STATE, "state-" + id)
+			.token(new OidcIdToken("id-token-" + id, now, now.plusSeconds(300), claims),
+					metadata -> metadata.put(OAuth2Authorization.Token.CLAIMS_METADATA_NAME, claims))
+			.token(new OAuth2UserCode("user-code-" + id, now, now.plusSeconds(300)))
+			.token(new OAuth2DeviceCode("device-code-" + id, now, now.plusSeconds(300)))
+			.build();
+		service.save(authorization);
+
+		assertThat(service.findByToken("state-" + id, new OAuth2TokenType(OAuth2ParameterNames.STATE)).getId())
+			.isEqualTo(id);
+		assertThat(service.findByToken("id-token-" + id, new OAuth2TokenType(OidcParameterNames.ID_TOKEN)).getId())
+			.isEqualTo(id);
+		assertThat(service.findByToken("user-code-" + id, new OAuth2TokenType(OAuth2ParameterNames.USER_CODE)).getId())
+			.isEqualTo(id);
+		assertThat(
+				service.findByToken("device-code-" + id, new OAuth2TokenType(OAuth2ParameterNames.DEVICE_CODE)).getId())
+			.isEqualTo(id);
+		assertThat(service.findByToken("user-code-" + id, new OAuth2TokenType(OAuth2ParameterNames.DEVICE_CODE)))
+			.isNull();
+		service.remove(authorization);
+	}
+
+}
@@ -0,0 +1,110 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.server.authorization.InMemoryOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2AccessTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.authentication.OAuth2ClientCredentialsAuthenticationToken;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+
+class ReusingClientCredentialsAuthenticationProviderTests {
+
+	private final InMemoryOAuth2AuthorizationService authorizationService = new InMemoryOAuth2AuthorizationService();
+
+	private Duration age = Duration.ZERO;
+
+	// issues a token that's already this.age old, and records it the way the real provider would
+	private final AuthenticationProvider delegate = new AuthenticationProvider() {
+
+		@Override
+		public Authentication authenticate(Authentication authentication) {
+			var clientPrincipal = (OAuth2ClientAuthenticationToken) authentication.getPrincipal();
+			var client = clientPrincipal.getRegisteredClient();
+			var issuedAt = Instant.now().minus(age);
+			var token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, UUID.randomUUID().toString(),
+					issuedAt, issuedAt.plus(Duration.ofMinutes(5)), Set.of("user.read"));
+			authorizationService.save(OAuth2Authorization.withRegisteredClient(client)
+				.principalName(client.getClientId())
+				.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+				.accessToken(token)
+				.build());
+			return new OAuth2AccessTokenAuthenticationToken(client, clientPrincipal, token);
+		}
+
+		@Override
+		public boolean supports(Class<?> authentication) {
+			return true;
+		}
+	};
+
+	private final ReusingClientCredentialsAuthenticationProvider provider = new ReusingClientCredentialsAuthenticationProvider(
+			this.delegate, this.authorizationService, 0.5, 100, new SimpleMeterRegistry());
+
+	private static RegisteredClient client(boolean reuse) {
+		return RegisteredClient.withId(UUID.randomUUID().toString())
+			.clientId("crm")
+			.clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+			.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+			.scope("user.read")
+			.tokenSettings(TokenSettings.builder().setting(ClientCredentialsTokenSettings.REUSE_ACCESS_TOKENS, reuse).build())
+			.build();
+	}
+
+	private String token(RegisteredClient client) {
+		var clientPrincipal = new OAuth2ClientAuthenticationToken(client, ClientAuthenticationMethod.CLIENT_SECRET_BASIC,
+				null);
+		var request = new OAuth2ClientCredentialsAuthenticationToken(clientPrincipal, Set.of("user.read"), null);
+		return ((OAuth2AccessTokenAuthenticationToken) this.provider.authenticate(request)).getAccessToken()
+			.getTokenValue();
+	}
+
+	@Test
+	void reusesTheTokenForTheSameClientAndScopes() {
+		var client = client(true);
+
+		assertThat(token(client)).isEqualTo(token(client));
+	}
+
+	@Test
+	void issuesNewTokensUnlessTheClientOptsIn() {
+		var client = client(false);
+
+		assertThat(token(client)).isNotEqualTo(token(client));
+	}
+
+	@Test
+	void issuesANewTokenOnceTooLittleOfTheLifetimeIsLeft() {
+		var client = client(true);
+		this.age = Duration.ofMinutes(3);
+
+		assertThat(token(client)).isNotEqualTo(token(client));
+	}
+
+	@Test
+	void issuesANewTokenOnceTheOldOneIsRevoked() {
+		var client = client(true);
+		var first = token(client);
+		var authorization = this.authorizationService.findByToken(first, null);
+		this.authorizationService.save(OAuth2Authorization.from(authorization)
+			.token(authorization.getAccessToken().getToken(),
+					metadata -> metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+			.build());
+
+		assertThat(token(client)).isNotEqualTo(first);
+	}
+
+}
@@ -0,0 +1,66 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.PortResolverImpl;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+import org.springframework.security.web.savedrequest.DefaultSavedRequest;
+
+class SessionAttributeConverterTests {
+
+	private final SessionAttributeConverter converter = new SessionAttributeConverter(true);
+
+	private final SerializingConverter serializer = new SerializingConverter();
+
+	private static SecurityContextImpl securityContext() {
+		var user = new User("jlong", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+		return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+	}
+
+	@Test
+	void roundTripsTheLoginFlowAttributes() {
+		var request = new MockHttpServletRequest("GET", "/oauth2/authorize");
+		request.setQueryString("response_type=code&client_id=crm");
+		var savedRequest = new DefaultSavedRequest(request, new PortResolverImpl());
+		var csrfToken = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "token");
+
+		assertThat(this.converter.deserialize(this.converter.serialize(securityContext())))
+			.isEqualTo(securityContext());
+		assertThat(this.converter.deserialize(this.converter.serialize(savedRequest)))
+			.usingRecursiveComparison()
+			.isEqualTo(savedRequest);
+		assertThat(this.converter.deserialize(this.converter.serialize(csrfToken))).usingRecursiveComparison()
+			.isEqualTo(csrfToken);
+	}
+
+	@Test
+	void isSmallerThanJavaSerialization() {
+		assertThat(this.converter.serialize(securityContext()).length)
+			.isLessThan(this.serializer.convert(securityContext()).length);
+	}
+
+	@Test
+	void readsAndWritesEverythingElseWithJavaSerialization() {
+		var value = List.of(1, 2, 3);
+
+		assertThat(this.converter.serialize(value)).isEqualTo(this.serializer.convert(value));
+		assertThat(this.converter.deserialize(this.serializer.convert(securityContext()))).isEqualTo(securityContext());
+	}
+
+	@Test
+	void writesEverythingWithJavaSerializationWhenNotCompact() {
+		var converter = new SessionAttributeConverter(false);
+
+		assertThat(converter.serialize(securityContext())).isEqualTo(this.serializer.convert(securityContext()));
+		assertThat(converter.deserialize(this.converter.serialize(securityContext()))).isEqualTo(securityContext());
+	}
+
+}
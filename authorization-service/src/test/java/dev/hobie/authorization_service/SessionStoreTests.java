@@ -0,0 +1,128 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// the same checks against each session store. redis is an embedded, redis-compatible stand-in
+@SpringBootTest
+class SessionStoreTests {
+
+	private static final Duration TIMEOUT = Duration.ofMinutes(30);
+
+	private static RedisServer redisServer;
+
+	private static LettuceConnectionFactory redisConnectionFactory;
+
+	private final SessionAttributeConverter converter = new SessionAttributeConverter(true);
+
+	@Autowired
+	private JdbcOperations jdbcOperations;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeAll
+	static void startRedis() throws Exception {
+		redisServer = RedisServer.newRedisServer().start();
+		redisConnectionFactory = new LettuceConnectionFactory(
+				new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+		redisConnectionFactory.afterPropertiesSet();
+		redisConnectionFactory.start();
+	}
+
+	@AfterAll
+	static void stopRedis() throws Exception {
+		redisConnectionFactory.destroy();
+		redisServer.stop();
+	}
+
+	@SuppressWarnings("unchecked")
+	private SessionRepository<Session> repository(String store) {
+		return (SessionRepository<Session>) switch (store) {
+			case "jdbc" -> SessionsConfiguration.jdbcSessionRepository(this.jdbcOperations, this.transactionManager,
+					this.converter, TIMEOUT, Duration.ofMinutes(1));
+			case "redis" -> SessionsConfiguration.redisSessionRepository(redisConnectionFactory, this.converter, TIMEOUT);
+			default -> new InMemorySessionRepository(this.converter, TIMEOUT, 100, new SimpleMeterRegistry());
+		};
+	}
+
+	private static SecurityContextImpl securityContext() {
+		var user = new User("jlong", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+		return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "jdbc", "redis", "memory" })
+	void roundTripsASession(String store) {
+		var repository = repository(store);
+		var session = repository.createSession();
+		session.setAttribute("SPRING_SECURITY_CONTEXT", securityContext());
+		session.setAttribute("continue", "/oauth2/authorize");
+		repository.save(session);
+
+		var found = repository.findById(session.getId());
+
+		assertThat(found.getMaxInactiveInterval()).isEqualTo(TIMEOUT);
+		assertThat(found.<SecurityContextImpl>getAttribute("SPRING_SECURITY_CONTEXT")).isEqualTo(securityContext());
+		assertThat(found.<String>getAttribute("continue")).isEqualTo("/oauth2/authorize");
+		found.removeAttribute("continue");
+		repository.save(found);
+		assertThat(repository.findById(session.getId()).getAttributeNames()).containsOnly("SPRING_SECURITY_CONTEXT");
+		repository.deleteById(session.getId());
+		assertThat(repository.findById(session.getId())).isNull();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "jdbc", "redis", "memory" })
+	void followsAChangedId(String store) {
+		var repository = repository(store);
+		var session = repository.createSession();
+		session.setAttribute("continue", "/oauth2/authorize");
+		repository.save(session);
+		var found = repository.findById(session.getId());
+		var originalId = found.getId();
+
+		found.changeSessionId();
+		repository.save(found);
+
+		assertThat(repository.findById(originalId)).isNull();
+		assertThat(repository.findById(found.getId()).<String>getAttribute("continue")).isEqualTo("/oauth2/authorize");
+		repository.deleteById(found.getId());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "jdbc", "redis", "memory" })
+	void dropsAnExpiredSession(String store) {
+		var repository = repository(store);
+		var session = repository.createSession();
+		session.setMaxInactiveInterval(Duration.ofSeconds(1));
+		session.setLastAccessedTime(Instant.now().minusSeconds(2));
+		session.setAttribute("continue", "/oauth2/authorize");
+		repository.save(session);
+
+		assertThat(repository.findById(session.getId())).isNull();
+		repository.deleteById(session.getId());
+	}
+
+}
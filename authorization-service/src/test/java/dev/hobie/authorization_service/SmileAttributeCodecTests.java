@@ -0,0 +1,87 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+class SmileAttributeCodecTests {
+
+	private final SmileAttributeCodec smile = new SmileAttributeCodec();
+
+	private final JsonAttributeCodec json = new JsonAttributeCodec();
+
+	private static Map<String, Object> attributes() {
+		var user = new User("jlong", "", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+		var principal = UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+		principal.setDetails(new WebAuthenticationDetails("127.0.0.1", "session"));
+		var request = OAuth2AuthorizationRequest.authorizationCode()
+			.authorizationUri("http://localhost:8080/oauth2/authorize")
+			.clientId("crm")
+			.redirectUri("http://127.0.0.1:8082/login/oauth2/code/spring")
+			.scopes(Set.of("openid", "user.read"))
+			.state("state")
+			.additionalParameters(Map.of("nonce", "nonce"))
+			.build();
+		var attributes = new HashMap<String, Object>();
+		attributes.put(Principal.class.getName(), principal);
+		attributes.put(OAuth2AuthorizationRequest.class.getName(), request);
+		attributes.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true);
+		attributes.put("issued", Instant.ofEpochSecond(1_700_000_000));
+		attributes.put("escaped", "\u0000not a type id");
+		return attributes;
+	}
+
+	@Test
+	void roundTripsAttributes() {
+		var attributes = attributes();
+
+		var decoded = this.smile.decode(this.smile.encode(attributes));
+
+		assertThat(decoded).usingRecursiveComparison().isEqualTo(this.json.decode(this.json.encode(attributes)));
+		assertThat(decoded.get("escaped")).isEqualTo("\u0000not a type id");
+		assertThat(decoded.get(Principal.class.getName())).isInstanceOf(UsernamePasswordAuthenticationToken.class);
+	}
+
+	@Test
+	void isSmallerThanJson() {
+		var attributes = attributes();
+
+		assertThat(this.smile.encode(attributes).length).isLessThan(this.json.encode(attributes).length);
+	}
+
+	@Test
+	void readsLegacyJson() {
+		var attributes = attributes();
+
+		assertThat(this.smile.decode(this.json.encode(attributes))).usingRecursiveComparison()
+			.isEqualTo(this.json.decode(this.json.encode(attributes)));
+	}
+
+	@Test
+	void readsBothFormatsFromATextColumn() {
+		var attributes = attributes();
+		var smile = this.smile.encode(attributes);
+		var json = this.json.encode(attributes);
+
+		var storedSmile = AuthorizationParametersMapper.text(smile);
+		var storedJson = AuthorizationParametersMapper.text(json);
+
+		assertThat(storedSmile).startsWith(AuthorizationParametersMapper.BASE64_PREFIX);
+		assertThat(storedJson).startsWith("{");
+		assertThat(AuthorizationParametersMapper.bytes(storedSmile)).isEqualTo(smile);
+		assertThat(AuthorizationParametersMapper.bytes(storedJson)).isEqualTo(json);
+	}
+
+}
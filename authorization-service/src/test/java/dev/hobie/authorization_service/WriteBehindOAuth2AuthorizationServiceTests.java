@@ -0,0 +1,136 @@
+package dev.hobie.authorization_service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.server.authorization.InMemoryOAuth2AuthorizationService;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+class WriteBehindOAuth2AuthorizationServiceTests {
+
+	private final RegisteredClient client = RegisteredClient.withId(UUID.randomUUID().toString())
+		.clientId("crm")
+		.clientAuthenticationMethod(ClientAuthenticationMethod.CLIENT_SECRET_BASIC)
+		.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+		.build();
+
+	private final List<Integer> batches = new CopyOnWriteArrayList<>();
+
+	private final JdbcOperations jdbc = mock(JdbcOperations.class);
+
+	{
+		when(this.jdbc.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+			this.batches.add(invocation.<List<?>>getArgument(1).size());
+			return new int[0];
+		});
+	}
+
+	private final WriteBehindOAuth2AuthorizationService service = new WriteBehindOAuth2AuthorizationService(
+			new InMemoryOAuth2AuthorizationService(), this.jdbc, authorization -> List.of(), 100, 100,
+			Duration.ofHours(1), new SimpleMeterRegistry());
+
+	private OAuth2Authorization authorization(String id, String accessToken) {
+		var now = Instant.now();
+		return OAuth2Authorization.withRegisteredClient(this.client)
+			.id(id)
+			.principalName("crm")
+			.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+			.accessToken(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, accessToken, now,
+					now.plusSeconds(300)))
+			.build();
+	}
+
+	@Test
+	void queuedChangesCanBeReadBeforeTheyreWritten() throws Exception {
+		var authorization = authorization("1", "token");
+
+		this.service.save(authorization);
+
+		assertThat(this.service.findById("1")).isSameAs(authorization);
+		assertThat(this.service.findByToken("token", OAuth2TokenType.ACCESS_TOKEN)).isSameAs(authorization);
+		assertThat(this.batches).isEmpty();
+
+		this.service.remove(authorization);
+
+		assertThat(this.service.findById("1")).isNull();
+		this.service.close();
+	}
+
+	@Test
+	void writesOnlyTheLatestChangeToEachAuthorizationWhenClosed() throws Exception {
+		this.service.save(authorization("1", "first"));
+		this.service.save(authorization("1", "second"));
+		this.service.save(authorization("2", "third"));
+
+		assertThat(this.service.findByToken("first", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+
+		this.service.close();
+
+		assertThat(this.batches).containsExactly(2);
+	}
+
+	@Test
+	void aReplacedRefreshTokenCantBeReplayedBeforeTheChangeIsWritten() throws Exception {
+		var delegate = new InMemoryOAuth2AuthorizationService();
+		var service = new WriteBehindOAuth2AuthorizationService(delegate, this.jdbc, authorization -> List.of(), 100,
+				100, Duration.ofHours(1), new SimpleMeterRegistry());
+		var now = Instant.now();
+		delegate.save(OAuth2Authorization.from(authorization("1", "first"))
+			.refreshToken(new OAuth2RefreshToken("old", now, now.plusSeconds(3600)))
+			.build());
+
+		service.save(OAuth2Authorization.from(authorization("1", "second"))
+			.refreshToken(new OAuth2RefreshToken("new", now, now.plusSeconds(3600)))
+			.build());
+
+		assertThat(service.findByToken("old", OAuth2TokenType.REFRESH_TOKEN)).isNull();
+		assertThat(service.findByToken("old", null)).isNull();
+		assertThat(service.findByToken("first", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+		assertThat(service.findByToken("new", OAuth2TokenType.REFRESH_TOKEN).getAccessToken().getToken().getTokenValue())
+			.isEqualTo("second");
+		service.close();
+	}
+
+	@Test
+	void keepsWritingAndRetriesAChangeThatCouldntBeWritten() throws Exception {
+		var failing = new AtomicBoolean(true);
+		var service = new WriteBehindOAuth2AuthorizationService(new InMemoryOAuth2AuthorizationService(), this.jdbc,
+				authorization -> {
+					if (failing.get() && authorization.getId().equals("bad"))
+						throw new IllegalArgumentException("can't encode");
+					return List.of();
+				}, 100, 100, Duration.ofMillis(20), new SimpleMeterRegistry());
+
+		service.save(authorization("good", "first"));
+		service.save(authorization("bad", "second"));
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> this.batches.contains(1));
+		assertThat(service.findByToken("second", OAuth2TokenType.ACCESS_TOKEN)).isNotNull();
+
+		failing.set(false);
+		service.save(authorization("next", "third"));
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> this.batches.stream().mapToInt(Integer::intValue).sum() == 3);
+		service.close();
+	}
+
+}
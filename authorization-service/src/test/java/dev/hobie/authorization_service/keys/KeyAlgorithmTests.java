@@ -0,0 +1,51 @@
+package dev.hobie.authorization_service.keys;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.oidc.OidcScopes;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+
+class KeyAlgorithmTests {
+
+	private static RegisteredClient client(TokenSettings tokenSettings) {
+		return RegisteredClient.withId("id")
+			.clientId("crm")
+			.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+			.scope(OidcScopes.OPENID)
+			.tokenSettings(tokenSettings)
+			.build();
+	}
+
+	@Test
+	void acceptsAClientWhoseTokensWeCanSign() {
+		var client = client(TokenSettings.builder().setting(KeyAlgorithm.ACCESS_TOKEN_SIGNATURE_ALGORITHM, "ES256").build());
+
+		assertThatCode(() -> KeyAlgorithm.checkSupported(client, Set.of(KeyAlgorithm.RS256, KeyAlgorithm.ES256)))
+			.doesNotThrowAnyException();
+	}
+
+	@Test
+	void rejectsAnAlgorithmWeCantSignWith() {
+		var client = client(TokenSettings.builder().idTokenSignatureAlgorithm(SignatureAlgorithm.RS512).build());
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> KeyAlgorithm.checkSupported(client, Set.of(KeyAlgorithm.values())))
+			.withMessageContaining("RS512");
+	}
+
+	@Test
+	void rejectsAnAlgorithmWeHaveNoKeysFor() {
+		var client = client(TokenSettings.builder().setting(KeyAlgorithm.ACCESS_TOKEN_SIGNATURE_ALGORITHM, "EdDSA").build());
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> KeyAlgorithm.checkSupported(client, Set.of(KeyAlgorithm.RS256, KeyAlgorithm.ES256)))
+			.withMessageContaining("EdDSA");
+	}
+
+}
@@ -0,0 +1,38 @@
+package dev.hobie.authorization_service.keys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class KeyRingCacheTests {
+
+	private final SigningKeyPairRepository repository = new InMemorySigningKeyPairRepository();
+
+	private final KeyRingGeneration generation = new InMemoryKeyRingGeneration();
+
+	@Test
+	void keysChangedOnOneNodeReachTheOthers() {
+		var node1 = new KeyRingCache(this.repository, this.generation, event -> {});
+		var node2 = new KeyRingCache(this.repository, this.generation, event -> {});
+		assertThat(node2.get().keyPairs()).isEmpty();
+
+		this.repository.save(new Keys().generateKeyPair("key-1", Instant.now()));
+		node1.keysChanged();
+		node2.refreshIfChanged();
+
+		assertThat(node2.get().findKeyPair("key-1")).isNotNull();
+	}
+
+	@Test
+	void unchangedGenerationDoesNotReloadTheKeys() {
+		var node = new KeyRingCache(this.repository, this.generation, event -> {});
+		var loaded = node.get();
+
+		this.repository.save(new Keys().generateKeyPair("key-1", Instant.now()));
+		node.refreshIfChanged();
+
+		assertThat(node.get()).isSameAs(loaded);
+	}
+
+}
@@ -0,0 +1,86 @@
+package dev.hobie.authorization_service.keys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+
+class KeyRingJwtDecoderTests {
+
+	private final SigningKeyPairRepository repository = new InMemorySigningKeyPairRepository();
+
+	private final KeyRingCache keyRingCache = new KeyRingCache(this.repository, new InMemoryKeyRingGeneration(),
+			event -> {});
+
+	private final KeyRingJwtEncoder encoder = new KeyRingJwtEncoder(this.keyRingCache);
+
+	private final KeyRingJwtDecoder decoder = new KeyRingJwtDecoder(this.keyRingCache);
+
+	private String encode(KeyAlgorithm algorithm, String subject) {
+		var now = Instant.now();
+		if (this.keyRingCache.get().findKeyPair(algorithm + "-key") == null) {
+			this.repository.save(new Keys().generateKeyPair(algorithm + "-key", algorithm, now, now));
+			this.keyRingCache.keysChanged();
+		}
+		var claims = JwtClaimsSet.builder()
+			.issuer("http://localhost:8080")
+			.subject(subject)
+			.audience(List.of(subject))
+			.issuedAt(now)
+			.notBefore(now)
+			.expiresAt(now.plusSeconds(300))
+			.id("jti-1")
+			.claim("scope", List.of("user.read"))
+			.build();
+		var header = JwsHeader.with(algorithm.springJwsAlgorithm()).build();
+		return this.encoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+	}
+
+	@ParameterizedTest
+	@EnumSource(KeyAlgorithm.class)
+	void decodesWhatTheEncoderSigned(KeyAlgorithm algorithm) {
+		var jwt = this.decoder.decode(encode(algorithm, "crm"));
+
+		assertThat(jwt.getSubject()).isEqualTo("crm");
+		assertThat(jwt.getAudience()).containsExactly("crm");
+		assertThat(jwt.getId()).isEqualTo("jti-1");
+		assertThat(jwt.getNotBefore()).isNotNull();
+		assertThat(jwt.getClaimAsStringList("scope")).containsExactly("user.read");
+	}
+
+	@ParameterizedTest
+	@EnumSource(KeyAlgorithm.class)
+	void rejectsATamperedToken(KeyAlgorithm algorithm) {
+		var signed = encode(algorithm, "crm").split("\\.");
+		var other = encode(algorithm, "erp").split("\\.");
+
+		assertThatExceptionOfType(BadJwtException.class)
+			.isThrownBy(() -> this.decoder.decode(signed[0] + "." + other[1] + "." + signed[2]));
+	}
+
+	@Test
+	void rejectsATokenSignedWithAKeyWeDontHave() {
+		var token = encode(KeyAlgorithm.ES256, "crm");
+		var otherRepository = new InMemorySigningKeyPairRepository();
+		var otherKeyRingCache = new KeyRingCache(otherRepository, new InMemoryKeyRingGeneration(), event -> {});
+		var otherDecoder = new KeyRingJwtDecoder(otherKeyRingCache);
+
+		assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> otherDecoder.decode(token));
+
+		// the same kid, but not the same key
+		var now = Instant.now();
+		otherRepository.save(new Keys().generateKeyPair("ES256-key", KeyAlgorithm.ES256, now, now));
+		otherKeyRingCache.keysChanged();
+
+		assertThatExceptionOfType(BadJwtException.class).isThrownBy(() -> otherDecoder.decode(token));
+	}
+
+}
@@ -0,0 +1,41 @@
+package dev.hobie.authorization_service.keys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class PooledJwsSignerTests {
+
+	@ParameterizedTest
+	@EnumSource(value = KeyAlgorithm.class, names = { "RS256", "ES256" })
+	void signaturesMadeAtTheSameTimeAllVerify(KeyAlgorithm algorithm) throws Exception {
+		var now = Instant.now();
+		var keyPair = new Keys().generateKeyPair("key", algorithm, now, now);
+		var signer = new PooledJwsSigner(keyPair);
+		var verifier = new DefaultJWSVerifierFactory().createJWSVerifier(new JWSHeader(algorithm.jwsAlgorithm()),
+				keyPair.publicKey());
+		var tasks = new ArrayList<Callable<Boolean>>();
+		for (var index = 0; index < 200; index++) {
+			var payload = new Payload("token " + index);
+			tasks.add(() -> {
+				var jws = new JWSObject(new JWSHeader(algorithm.jwsAlgorithm()), payload);
+				jws.sign(signer);
+				return JWSObject.parse(jws.serialize()).verify(verifier);
+			});
+		}
+		try (var executor = Executors.newFixedThreadPool(16)) {
+			for (var result : executor.invokeAll(tasks))
+				assertThat(result.get()).isTrue();
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package dev.hobie.authorization_service.provisioning;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ProvisioningRowsTests {
+
+	@Test
+	void readsCsvWithAHeaderLine() throws Exception {
+		var csv = """
+				username,password,authorities
+				jlong,password,ROLE_USER ROLE_ADMIN
+
+				"rwinch","p@ss,w0rd",
+				""";
+		try (var rows = new ProvisioningRows(new StringReader(csv), ProvisioningFormat.CSV)) {
+			var chunk = rows.next(10);
+
+			assertThat(chunk).hasSize(2);
+			assertThat(chunk.get(0).list("authorities")).containsExactly("ROLE_USER", "ROLE_ADMIN");
+			assertThat(chunk.get(1).line()).isEqualTo(4);
+			assertThat(chunk.get(1).text("password")).isEqualTo("p@ss,w0rd");
+			assertThat(chunk.get(1).list("authorities")).isEmpty();
+			assertThat(rows.next(10)).isEmpty();
+		}
+	}
+
+	@Test
+	void turnsALineThatIsNotJsonIntoAnError() throws Exception {
+		var ndjson = """
+				{"username": "jlong", "authorities": ["ROLE_USER"], "enabled": false}
+				{"username": "rwinch",
+				{"username": "dsyer"}
+				""";
+		try (var rows = new ProvisioningRows(new StringReader(ndjson), ProvisioningFormat.NDJSON)) {
+			var first = rows.next(2);
+			var second = rows.next(2);
+
+			assertThat(first.get(0).list("authorities")).isEqualTo(List.of("ROLE_USER"));
+			assertThat(first.get(0).flag("enabled", true)).isFalse();
+			assertThat(first.get(1).error()).isNotNull();
+			assertThat(second).singleElement().satisfies(row -> assertThat(row.text("username")).isEqualTo("dsyer"));
+		}
+	}
+
+
+	@Test
+	void blankFieldsAndEmptyArraysAreNoValue() throws Exception {
+		var csv = """
+				client_id,client_secret,scopes
+				crm, ,user.read
+				""";
+		try (var rows = new ProvisioningRows(new StringReader(csv), ProvisioningFormat.CSV)) {
+			var row = rows.next(10).get(0);
+
+			assertThat(row.has("client_id")).isTrue();
+			assertThat(row.has("client_secret")).isFalse();
+			assertThat(row.has("redirect_uris")).isFalse();
+		}
+		var ndjson = """
+				{"client_id": "crm", "scopes": [], "grant_types": ["client_credentials"]}
+				""";
+		try (var rows = new ProvisioningRows(new StringReader(ndjson), ProvisioningFormat.NDJSON)) {
+			var row = rows.next(10).get(0);
+
+			assertThat(row.has("scopes")).isFalse();
+			assertThat(row.has("grant_types")).isTrue();
+		}
+	}
+
+}